@@ -0,0 +1,297 @@
+package com.reazip.economycraft;
+
+import com.reazip.economycraft.storage.BalanceJournal;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+
+import java.util.UUID;
+
+/**
+ * Account tables split into lock stripes so balances can be read and changed
+ * from any thread (stock simulation, other mods' async tasks) as well as the
+ * server thread.
+ * <p>
+ * Each account hashes to one stripe; a stripe owns the primitive tables for
+ * its accounts, its own journal lane and a version counter, and is guarded by
+ * its own monitor. Operations touching two accounts lock both stripes in index
+ * order. Journal records go to the stripe's lane while the stripe is held, so
+ * they are ordered per account exactly like the table writes without a lock
+ * shared between stripes. Leaderboard updates are applied after the stripe is
+ * released, tagged with the stripe version of the write; the leaderboard keeps
+ * the newest version per account. Neither does I/O or looks up player names.
+ */
+final class AccountLedger {
+    static final long NONE = -1L;
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final BalanceLeaderboard leaderboard;
+
+    private static final class Stripe {
+        final int index;
+        final BalanceJournal.Lane journal;
+        // Bumped on every balance change or removal in this stripe.
+        long version;
+        // Missing keys read as NONE.
+        final Object2LongOpenHashMap<UUID> balances = newTable();
+        final Object2LongOpenHashMap<UUID> lastDaily = newTable();
+        final Object2LongOpenHashMap<UUID> sellDay = newTable();
+        final Object2LongOpenHashMap<UUID> sellAmount = newTable();
+
+        Stripe(int index, BalanceJournal.Lane journal) {
+            this.index = index;
+            this.journal = journal;
+        }
+    }
+
+    AccountLedger(BalanceJournal journal, BalanceLeaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe(i, journal.newLane());
+    }
+
+    // =====================================================================
+    // === Loading (no journal records) ====================================
+    // =====================================================================
+
+    void loadBalance(UUID player, long balance) {
+        Stripe s = stripe(player);
+        long clamped = clamp(balance);
+        long version;
+        synchronized (s) {
+            s.balances.put(player, clamped);
+            version = ++s.version;
+        }
+        leaderboard.put(player, clamped, version);
+    }
+
+    void loadDaily(UUID player, long day) {
+        Stripe s = stripe(player);
+        synchronized (s) {
+            s.lastDaily.put(player, day);
+        }
+    }
+
+    void loadDailySell(UUID player, long day, long amount) {
+        Stripe s = stripe(player);
+        synchronized (s) {
+            s.sellDay.put(player, day);
+            s.sellAmount.put(player, amount);
+        }
+    }
+
+    // =====================================================================
+    // === Balances ========================================================
+    // =====================================================================
+
+    /** Returns the balance, or {@link #NONE} if the player has no account. */
+    long balance(UUID player) {
+        Stripe s = stripe(player);
+        synchronized (s) {
+            return s.balances.getLong(player);
+        }
+    }
+
+    long balanceOrOpen(UUID player) {
+        Stripe s = stripe(player);
+        long balance, before, version;
+        synchronized (s) {
+            before = s.version;
+            balance = openIfMissing(s, player);
+            version = s.version;
+        }
+        if (version != before) leaderboard.put(player, balance, version);
+        return balance;
+    }
+
+    boolean contains(UUID player) {
+        Stripe s = stripe(player);
+        synchronized (s) {
+            return s.balances.containsKey(player);
+        }
+    }
+
+    void add(UUID player, long amount) {
+        Stripe s = stripe(player);
+        long balance, version;
+        synchronized (s) {
+            balance = clamp(openIfMissing(s, player) + amount);
+            version = write(s, player, balance);
+        }
+        leaderboard.put(player, balance, version);
+    }
+
+    void set(UUID player, long amount) {
+        Stripe s = stripe(player);
+        long balance = clamp(amount);
+        long version;
+        synchronized (s) {
+            version = write(s, player, balance);
+        }
+        leaderboard.put(player, balance, version);
+    }
+
+    boolean remove(UUID player, long amount) {
+        Stripe s = stripe(player);
+        long balance, before, version;
+        boolean removed;
+        synchronized (s) {
+            before = s.version;
+            balance = openIfMissing(s, player);
+            removed = balance >= amount;
+            if (removed) {
+                balance = clamp(balance - amount);
+                write(s, player, balance);
+            }
+            version = s.version;
+        }
+        // an account opened by a refused removal still has to be ranked
+        if (version != before) leaderboard.put(player, balance, version);
+        return removed;
+    }
+
+    EconomyManager.TransferResult transfer(UUID from, UUID to, long amount) {
+        if (amount <= 0) return EconomyManager.TransferResult.INVALID_AMOUNT;
+        if (from.equals(to)) return EconomyManager.TransferResult.SAME_ACCOUNT;
+
+        Stripe a = stripe(from);
+        Stripe b = stripe(to);
+        Stripe first = a.index <= b.index ? a : b;
+        Stripe second = first == a ? b : a;
+
+        EconomyManager.TransferResult result;
+        long fromBalance, toBalance, fromVersion, toVersion;
+        boolean changed;
+        synchronized (first) {
+            synchronized (second) {
+                long beforeA = a.version;
+                long beforeB = b.version;
+                fromBalance = openIfMissing(a, from);
+                if (fromBalance < amount) {
+                    toBalance = b.balances.getLong(to);
+                    result = EconomyManager.TransferResult.INSUFFICIENT_FUNDS;
+                } else {
+                    toBalance = openIfMissing(b, to);
+                    if (toBalance + amount > EconomyManager.MAX) {
+                        result = EconomyManager.TransferResult.RECIPIENT_LIMIT;
+                    } else {
+                        fromBalance -= amount;
+                        toBalance += amount;
+                        write(a, from, fromBalance);
+                        write(b, to, toBalance);
+                        result = EconomyManager.TransferResult.SUCCESS;
+                    }
+                }
+                // a refused transfer may still have opened either account
+                changed = a.version != beforeA || b.version != beforeB;
+                fromVersion = a.version;
+                toVersion = b.version;
+            }
+        }
+        if (changed) {
+            leaderboard.put(from, fromBalance, fromVersion);
+            if (toBalance != NONE) leaderboard.put(to, toBalance, toVersion);
+        }
+        return result;
+    }
+
+    boolean delete(UUID player) {
+        Stripe s = stripe(player);
+        long version;
+        synchronized (s) {
+            if (!s.balances.containsKey(player)) return false;
+            s.balances.removeLong(player);
+            s.journal.remove(player);
+            version = ++s.version;
+        }
+        leaderboard.remove(player, version);
+        return true;
+    }
+
+    /** Returns a point-in-time copy of every balance. */
+    Object2LongMap<UUID> snapshot() {
+        Object2LongOpenHashMap<UUID> out = newTable();
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                out.putAll(s.balances);
+            }
+        }
+        return out;
+    }
+
+    // =====================================================================
+    // === Daily reward / daily sell limit =================================
+    // =====================================================================
+
+    /** Marks today's reward as claimed and credits it; false if already claimed. */
+    boolean claimDaily(UUID player, long today, long reward) {
+        Stripe s = stripe(player);
+        long balance, version;
+        synchronized (s) {
+            if (s.lastDaily.getLong(player) == today) return false;
+            s.lastDaily.put(player, today);
+            s.journal.daily(player, today);
+            balance = clamp(openIfMissing(s, player) + reward);
+            version = write(s, player, balance);
+        }
+        leaderboard.put(player, balance, version);
+        return true;
+    }
+
+    /** Adds {@code amount} to today's sell total unless that would exceed {@code limit}; returns true if it would. */
+    boolean recordSellOverLimit(UUID player, long today, long amount, long limit) {
+        Stripe s = stripe(player);
+        synchronized (s) {
+            long newTotal = soldToday(s, player, today) + amount;
+            if (newTotal > limit) return true;
+            s.sellDay.put(player, today);
+            s.sellAmount.put(player, newTotal);
+            s.journal.dailySell(player, today, newTotal);
+            return false;
+        }
+    }
+
+    long soldToday(UUID player, long today) {
+        Stripe s = stripe(player);
+        synchronized (s) {
+            return soldToday(s, player, today);
+        }
+    }
+
+    // =====================================================================
+    // === Helpers (stripe must be held) ===================================
+    // =====================================================================
+
+    private static long openIfMissing(Stripe s, UUID player) {
+        long balance = s.balances.getLong(player);
+        if (balance != NONE) return balance;
+        balance = clamp(EconomyConfig.get().startingBalance);
+        write(s, player, balance);
+        return balance;
+    }
+
+    /** Stores and journals {@code balance}; returns the version to publish it to the leaderboard with. */
+    private static long write(Stripe s, UUID player, long balance) {
+        s.balances.put(player, balance);
+        s.journal.balance(player, balance);
+        return ++s.version;
+    }
+
+    private static long soldToday(Stripe s, UUID player, long today) {
+        return s.sellDay.getLong(player) == today ? s.sellAmount.getLong(player) : 0L;
+    }
+
+    private Stripe stripe(UUID player) {
+        int h = player.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static long clamp(long value) {
+        return Math.max(0, Math.min(EconomyManager.MAX, value));
+    }
+
+    private static Object2LongOpenHashMap<UUID> newTable() {
+        Object2LongOpenHashMap<UUID> map = new Object2LongOpenHashMap<>();
+        map.defaultReturnValue(NONE);
+        return map;
+    }
+}
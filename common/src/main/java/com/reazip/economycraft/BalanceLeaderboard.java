@@ -0,0 +1,90 @@
+package com.reazip.economycraft;
+
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+
+import java.util.*;
+
+/**
+ * Balance ranking that is updated alongside every balance mutation, so the top
+ * of the leaderboard can be read without sorting all accounts.
+ * <p>
+ * Entries are ordered by balance (descending), then case-insensitive name, then
+ * UUID. Names only come from {@link #rename(UUID, String)} (player join, or
+ * startup for stored accounts), so ranking never looks a name up and is safe
+ * under the ledger's locks. An account whose name is not known yet has a null
+ * name and sorts after named accounts with the same balance.
+ * <p>
+ * The ledger applies balance changes after releasing its stripe lock, so two
+ * updates for one account can arrive out of order. Each update carries a
+ * version that grows per account; an update older than the last one applied
+ * (or than the account's removal) is dropped.
+ * All methods are synchronized; writers may run off the server thread.
+ */
+public final class BalanceLeaderboard {
+    private static final Comparator<Standing> ORDER = Comparator
+            .comparingLong(Standing::balance).reversed()
+            .thenComparing(Standing::name, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(Standing::id);
+
+    private final NavigableSet<Standing> ranked = new TreeSet<>(ORDER);
+    private final Map<UUID, Standing> byId = new HashMap<>();
+    // names recorded by rename(), including for accounts that are not ranked yet
+    private final Map<UUID, String> names = new HashMap<>();
+    // last applied version per account, kept after removal so stale puts stay dropped
+    private final Object2LongOpenHashMap<UUID> versions = new Object2LongOpenHashMap<>();
+
+    public record Standing(UUID id, String name, long balance) {}
+
+    /**
+     * Ranks {@code id} at {@code balance} under its last recorded name, if any,
+     * unless an update with the same or a newer {@code version} was applied.
+     */
+    public synchronized void put(UUID id, long balance, long version) {
+        if (!advance(id, version)) return;
+        Standing old = byId.get(id);
+        if (old != null) {
+            if (old.balance() == balance) return;
+            ranked.remove(old);
+        }
+        Standing next = new Standing(id, names.get(id), balance);
+        byId.put(id, next);
+        ranked.add(next);
+    }
+
+    public synchronized void rename(UUID id, String name) {
+        names.put(id, name);
+        Standing old = byId.get(id);
+        if (old == null || name.equals(old.name())) return;
+        ranked.remove(old);
+        Standing next = new Standing(id, name, old.balance());
+        byId.put(id, next);
+        ranked.add(next);
+    }
+
+    public synchronized void remove(UUID id, long version) {
+        if (!advance(id, version)) return;
+        Standing old = byId.remove(id);
+        if (old != null) ranked.remove(old);
+    }
+
+    private boolean advance(UUID id, long version) {
+        if (versions.containsKey(id) && versions.getLong(id) >= version) return false;
+        versions.put(id, version);
+        return true;
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /** Returns at most {@code limit} standings, highest balance first. */
+    public synchronized List<Standing> top(int limit) {
+        if (limit <= 0 || ranked.isEmpty()) return List.of();
+        List<Standing> out = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (Standing s : ranked) {
+            if (out.size() >= limit) break;
+            out.add(s);
+        }
+        return out;
+    }
+}
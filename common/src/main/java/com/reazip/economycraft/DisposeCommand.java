@@ -145,7 +145,9 @@ public final class DisposeCommand {
             return 0;
         }
 
-        int totalCount = countMatchingDisposeable(player, prices, resolved.key());
+        Liquidation.Plan plan = Liquidation.scan(player, prices, Liquidation.DISPOSE);
+        Liquidation.Group group = plan.group(resolved.key());
+        int totalCount = group != null ? group.count() : 0;
         if (totalCount <= 0) {
             source.sendFailure(Component.literal("This item cannot be disposed for money.").withStyle(ChatFormatting.RED));
             return 0;
@@ -160,7 +162,7 @@ public final class DisposeCommand {
 
         IdentifierCompat.Id heldItemId = IdentifierCompat.wrap(net.minecraft.core.registries.BuiltInRegistries.ITEM.getKey(hand.getItem()));
         PENDING.put(player.getUUID(), new PendingDispose(resolved.key(), totalCount, total,
-                System.currentTimeMillis() + CONFIRM_EXPIRY_MS, heldItemId));
+                System.currentTimeMillis() + CONFIRM_EXPIRY_MS, heldItemId, plan));
 
         String itemName = hand.getHoverName().getString();
         MutableComponent base = Component.literal("This will dispose " + totalCount + "x " + itemName +
@@ -226,8 +228,13 @@ public final class DisposeCommand {
             return 0;
         }
 
-        int available = countMatchingDisposeable(player, prices, pending.key());
-        if (available < pending.count()) {
+        // Reuse the preview's scan unless the inventory moved since then.
+        Liquidation.Plan plan = pending.plan();
+        if (!plan.isCurrent(player, prices)) {
+            plan = Liquidation.scan(player, prices, Liquidation.DISPOSE);
+        }
+        Liquidation.Group group = plan.group(pending.key());
+        if (group == null || group.count() < pending.count()) {
             source.sendFailure(Component.literal("Items changed. Run /dispose all again.").withStyle(ChatFormatting.RED));
             PENDING.remove(player.getUUID());
             return 0;
@@ -239,7 +246,7 @@ public final class DisposeCommand {
         }
 
         String itemName = hand.getHoverName().getString();
-        removeMatching(player, prices, pending.key(), pending.count());
+        plan.take(player, group, pending.count());
         manager.addMoney(player.getUUID(), pending.total());
 
         Component msg = Component.literal("Successfully disposed " + pending.count() + "x " +
@@ -250,62 +257,6 @@ public final class DisposeCommand {
         return pending.count();
     }
 
-    private static int countMatchingDisposeable(ServerPlayer player, PriceRegistry prices, IdentifierCompat.Id key) {
-        var inv = player.getInventory();
-        int total = 0;
-        for (int i = 0; i < 36; i++) {
-            ItemStack stack = inv.getItem(i);
-            if (isMatchingDisposeable(prices, stack, key)) {
-                total += stack.getCount();
-            }
-        }
-
-        ItemStack offhand = player.getOffhandItem();
-        if (isMatchingDisposeable(prices, offhand, key)) {
-            total += offhand.getCount();
-        }
-        return total;
-    }
-
-    private static void removeMatching(ServerPlayer player, PriceRegistry prices, IdentifierCompat.Id key, int toRemove) {
-        var inv = player.getInventory();
-        int remaining = toRemove;
-        for (int i = 0; i < 36; i++) {
-            ItemStack stack = inv.getItem(i);
-            remaining = drainStack(prices, stack, key, remaining);
-            if (stack.isEmpty()) {
-                inv.setItem(i, ItemStack.EMPTY);
-            }
-            if (remaining <= 0) return;
-        }
-
-        ItemStack offhand = player.getOffhandItem();
-        remaining = drainStack(prices, offhand, key, remaining);
-        if (offhand.isEmpty()) {
-            player.setItemInHand(net.minecraft.world.InteractionHand.OFF_HAND, ItemStack.EMPTY);
-        }
-    }
-
-    private static int drainStack(PriceRegistry prices, ItemStack stack, IdentifierCompat.Id key, int remaining) {
-        if (remaining <= 0) return 0;
-        if (!isMatchingDisposeable(prices, stack, key)) return remaining;
-
-        int remove = Math.min(remaining, stack.getCount());
-        stack.shrink(remove);
-        if (stack.isEmpty()) {
-            stack.setCount(0);
-        }
-        return remaining - remove;
-    }
-
-    private static boolean isMatchingDisposeable(PriceRegistry prices, ItemStack stack, IdentifierCompat.Id key) {
-        if (stack == null || stack.isEmpty()) return false;
-        if (prices.isSellBlockedByDamage(stack)) return false;
-        if (prices.isSellBlockedByContents(stack)) return false;
-        ResolvedPrice rp = prices.resolve(stack);
-        return rp != null && key.equals(rp.key()) && (EconomyConfig.get().disposeFixedPricePerItem != null || prices.getUnitSell(stack) != null);
-    }
-
     private static Long safeMultiply(long value, int count) {
         try {
             return Math.multiplyExact(value, count);
@@ -324,7 +275,7 @@ public final class DisposeCommand {
     }
 
     private record PendingDispose(IdentifierCompat.Id key, int count, long total, long expiresAt,
-                               IdentifierCompat.Id heldItemId) {}
+                                  IdentifierCompat.Id heldItemId, Liquidation.Plan plan) {}
 
     private static int handleDailyLimitFailure(EconomyManager manager, ServerPlayer player, CommandSourceStack source) {
         long remaining = manager.getDailySellRemaining(player.getUUID());
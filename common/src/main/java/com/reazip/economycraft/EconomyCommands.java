@@ -35,6 +35,7 @@ import org.jetbrains.annotations.Nullable;
 
 public final class EconomyCommands {
     private static final org.slf4j.Logger LOGGER = com.mojang.logging.LogUtils.getLogger();
+    private static final int MAX_PLAYER_SUGGESTIONS = 50;
     public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
         dispatcher.register(buildRoot(
                 buildAddMoney(),
@@ -192,23 +193,20 @@ public final class EconomyCommands {
 
     private static int balTop(CommandSourceStack source) {
         EconomyManager manager = EconomyCraft.getManager(source.getServer());
-        Map<UUID, Long> balances = manager.getBalances();
+        var sorted = getSortedEntries(manager, 10);
 
-        if (balances.isEmpty()) {
+        if (sorted.isEmpty()) {
             source.sendFailure(Component.literal("No balances found").withStyle(ChatFormatting.RED));
             return 0;
         }
 
-        var sorted = getSortedEntries(balances, manager);
-        if (sorted.size() > 10) sorted = new java.util.ArrayList<>(sorted.subList(0, 10));
-
         StringBuilder sb = new StringBuilder("Top balances:\n");
         for (int i = 0; i < sorted.size(); i++) {
             var e = sorted.get(i);
-            UUID id = e.getKey();
-            long balance = e.getValue();
+            UUID id = e.id();
+            long balance = e.balance();
 
-            String name = manager.getBestName(id);
+            String name = e.name();
             if (name == null || name.isBlank()) name = id.toString();
 
             sb.append(i + 1)
@@ -232,23 +230,8 @@ public final class EconomyCommands {
         return sorted.size();
     }
 
-    private static @NotNull ArrayList<Map.Entry<UUID, Long>> getSortedEntries(Map<UUID, Long> balances, EconomyManager manager) {
-        var sorted = new ArrayList<>(balances.entrySet());
-        sorted.sort((a, b) -> {
-            int c = Long.compare(b.getValue(), a.getValue());
-            if (c != 0) return c;
-
-            String an = manager.getBestName(a.getKey());
-            String bn = manager.getBestName(b.getKey());
-            if (an == null || an.isBlank()) an = a.getKey().toString();
-            if (bn == null || bn.isBlank()) bn = b.getKey().toString();
-
-            c = String.CASE_INSENSITIVE_ORDER.compare(an, bn);
-            if (c != 0) return c;
-
-            return a.getKey().compareTo(b.getKey());
-        });
-        return sorted;
+    private static @NotNull List<BalanceLeaderboard.Standing> getSortedEntries(EconomyManager manager, int limit) {
+        return manager.getTopBalances(limit);
     }
 
     private static int pay(ServerPlayer from, String target, long amount, CommandSourceStack source) {
@@ -276,12 +259,13 @@ public final class EconomyCommands {
             return 0;
         }
 
-        if (!manager.getBalances().containsKey(toId)) {
+        if (!manager.hasAccount(toId)) {
             source.sendFailure(Component.literal("Unknown player").withStyle(ChatFormatting.RED));
             return 0;
         }
 
-        if (manager.pay(from.getUUID(), toId, amount)) {
+        EconomyManager.TransferResult result = manager.transfer(from.getUUID(), toId, amount);
+        if (result == EconomyManager.TransferResult.SUCCESS) {
             String displayName = (toOnline != null)
                     ? IdentityCompat.of(toOnline).name()
                     : getDisplayName(manager, toId);
@@ -308,6 +292,8 @@ public final class EconomyCommands {
                                 .withStyle(ChatFormatting.GREEN)
                 );
             }
+        } else if (result == EconomyManager.TransferResult.RECIPIENT_LIMIT) {
+            source.sendFailure(Component.literal("Recipient's balance would exceed the maximum").withStyle(ChatFormatting.RED));
         } else {
             source.sendFailure(Component.literal("Not enough balance").withStyle(ChatFormatting.RED));
         }
@@ -483,7 +469,7 @@ public final class EconomyCommands {
             UUID id = p.id();
 
             if (amount == null) {
-                if (!manager.getBalances().containsKey(id)) {
+                if (!manager.hasAccount(id)) {
                     source.sendFailure(Component.literal(
                                     "Failed to remove all money from " + p.name() + "'s balance. Unknown player.")
                             .withStyle(ChatFormatting.RED));
@@ -522,7 +508,7 @@ public final class EconomyCommands {
         for (var p : profiles) {
             UUID id = p.id();
             if (amount == null) {
-                if (!manager.getBalances().containsKey(id)) {
+                if (!manager.hasAccount(id)) {
                     source.sendFailure(Component.literal(
                                     "Failed to remove all money from " + p.name() + "'s balance. Unknown player.")
                             .withStyle(ChatFormatting.RED));
@@ -827,16 +813,31 @@ public final class EconomyCommands {
     private static CompletableFuture<Suggestions> suggestPlayers(CommandSourceStack source, SuggestionsBuilder builder) {
         var server = source.getServer();
         var manager = EconomyCraft.getManager(server);
-        Set<String> suggestions = new java.util.HashSet<>();
+        String remaining = builder.getRemainingLowerCase();
+        Set<String> suggestions = new java.util.LinkedHashSet<>();
 
+        // Online players first, then offline accounts by last seen.
+        List<String> online = new ArrayList<>();
         for (ServerPlayer p : server.getPlayerList().getPlayers()) {
-            suggestions.add(IdentityCompat.of(p).name());
+            String name = IdentityCompat.of(p).name();
+            if (name.toLowerCase(Locale.ROOT).startsWith(remaining)) {
+                online.add(name);
+            }
+        }
+        online.sort(String.CASE_INSENSITIVE_ORDER);
+        for (String name : online) {
+            if (suggestions.size() >= MAX_PLAYER_SUGGESTIONS) break;
+            suggestions.add(name);
         }
 
-        for (UUID id : manager.getBalances().keySet()) {
-            String name = manager.getBestName(id);
-            if (name != null && !name.isBlank()) {
-                suggestions.add(name);
+        // Over-fetch a little: some cached names have no account or are already listed.
+        int wanted = MAX_PLAYER_SUGGESTIONS - suggestions.size();
+        if (wanted > 0) {
+            for (IdentityCompat.PlayerRef ref : manager.getNames().suggest(remaining, wanted * 2)) {
+                if (suggestions.size() >= MAX_PLAYER_SUGGESTIONS) break;
+                if (manager.hasAccount(ref.id())) {
+                    suggestions.add(ref.name());
+                }
             }
         }
 
@@ -3,6 +3,7 @@ package com.reazip.economycraft;
 import com.google.gson.*;
 import com.google.gson.annotations.SerializedName;
 import com.mojang.logging.LogUtils;
+import com.reazip.economycraft.storage.AtomicFiles;
 import net.minecraft.server.MinecraftServer;
 import org.slf4j.Logger;
 
@@ -31,6 +32,8 @@ public class EconomyConfig {
     public boolean standaloneAdminCommands;
     @SerializedName("scoreboard_enabled")
     public boolean scoreboardEnabled;
+    @SerializedName("scoreboard_refresh_ticks")
+    public int scoreboardRefreshTicks = 20;
     @SerializedName("server_shop_enabled")
     public boolean serverShopEnabled = true;
     @SerializedName("dispose_enabled")
@@ -49,6 +52,16 @@ public class EconomyConfig {
     public long stockConfirmThresholdValue = 10000L;
     @SerializedName("stock_tick_interval_ms")
     public long stockTickIntervalMs = 1000L;
+    @SerializedName("stock_simulation_model")
+    public String stockSimulationModel = "random_walk";
+    @SerializedName("stock_simulation_seed")
+    public Long stockSimulationSeed = null;
+    @SerializedName("stock_history_retention_days")
+    public int stockHistoryRetentionDays = 30;
+    @SerializedName("stock_history_max_segments")
+    public int stockHistoryMaxSegments = 64;
+    @SerializedName("binary_storage")
+    public boolean binaryStorage = false;
 
     private static EconomyConfig INSTANCE = new EconomyConfig();
     private static Path file;
@@ -85,13 +98,7 @@ public class EconomyConfig {
             throw new IllegalStateException("[EconomyCraft] EconomyConfig not initialized. Call load() first.");
         }
         try {
-            Files.writeString(
-                    file,
-                    GSON.toJson(INSTANCE),
-                    StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING
-            );
+            AtomicFiles.write(file, GSON.toJson(INSTANCE), 0);
         } catch (IOException e) {
             throw new IllegalStateException("[EconomyCraft] Failed to save config.json at " + file, e);
         }
@@ -137,7 +144,7 @@ public class EconomyConfig {
 
         if (added[0] > 0) {
             try {
-                Files.writeString(file, GSON.toJson(userRoot), StandardCharsets.UTF_8);
+                AtomicFiles.write(file, GSON.toJson(userRoot), 0);
             } catch (IOException ex) {
                 throw new IllegalStateException("[EconomyCraft] Failed to write merged config.json at " + file, ex);
             }
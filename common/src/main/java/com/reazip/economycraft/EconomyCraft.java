@@ -1,24 +1,23 @@
 package com.reazip.economycraft;
 
 import com.reazip.economycraft.util.ChatCompat;
+import com.reazip.economycraft.util.IdentityCompat;
+import com.reazip.economycraft.util.MoneyFormat;
 import dev.architectury.event.events.common.CommandRegistrationEvent;
 import dev.architectury.event.events.common.LifecycleEvent;
 import dev.architectury.event.events.common.PlayerEvent;
+import dev.architectury.event.events.common.TickEvent;
 import net.minecraft.ChatFormatting;
 import net.minecraft.network.chat.ClickEvent;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 
-import java.text.NumberFormat;
-import java.util.Locale;
-
 public final class EconomyCraft {
     public static final String MOD_ID = "economycraft";
     private static EconomyManager manager;
     private static com.reazip.economycraft.stocks.StockManager stockManager;
     private static MinecraftServer lastServer;
-    private static final NumberFormat FORMAT = NumberFormat.getInstance(Locale.GERMANY);
 
     public static void registerEvents() {
         LifecycleEvent.SERVER_STARTING.register(EconomyConfig::load);
@@ -32,19 +31,34 @@ public final class EconomyCraft {
 
         LifecycleEvent.SERVER_STOPPING.register(server -> {
             if (manager != null && lastServer == server) {
-                manager.save();
+                manager.close();
             }
             if (stockManager != null && lastServer == server) {
-                stockManager.save();
+                stockManager.close();
             }
         });
 
         PlayerEvent.PLAYER_JOIN.register(EconomyCraft::onPlayerJoin);
+        PlayerEvent.PLAYER_QUIT.register(player -> {
+            if (manager != null && lastServer == player.level().getServer()) {
+                manager.updateName(player.getUUID(), IdentityCompat.of(player).name());
+            }
+        });
+
+        TickEvent.SERVER_POST.register(server -> {
+            if (manager != null && lastServer == server) {
+                manager.tick();
+            }
+            if (stockManager != null && lastServer == server) {
+                stockManager.flushChanges();
+            }
+        });
     }
 
     private static void onPlayerJoin(ServerPlayer player) {
         EconomyManager eco = getManager(player.level().getServer());
-        eco.getBalance(player.getUUID(), true);
+        eco.getBalance(player.getUUID());
+        eco.updateName(player.getUUID(), IdentityCompat.of(player).name());
 
         if (eco.getOrders().hasDeliveries(player.getUUID()) || eco.getShop().hasDeliveries(player.getUUID())) {
             ClickEvent ev = ChatCompat.runCommandEvent("/eco orders claim");
@@ -76,11 +90,11 @@ public final class EconomyCraft {
 
     public static Component createBalanceTitle(String baseTitle, ServerPlayer player) {
         EconomyManager eco = getManager(player.level().getServer());
-        long balance = eco.getBalance(player.getUUID(), true);
+        long balance = eco.getBalance(player.getUUID());
         return Component.literal(baseTitle + " - Balance: " + formatMoney(balance));
     }
 
     public static String formatMoney(long amount) {
-        return "$" + FORMAT.format(amount);
+        return MoneyFormat.format(amount);
     }
 }
@@ -1,8 +1,8 @@
 package com.reazip.economycraft;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.reazip.economycraft.storage.BalanceJournal;
 import com.reazip.economycraft.util.IdentityCompat;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
@@ -13,48 +13,48 @@ import net.minecraft.world.scores.criteria.ObjectiveCriteria;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.time.LocalDate;
 
 public class EconomyManager {
-    private static final Gson GSON = new Gson();
-    private static final Type TYPE = new TypeToken<Map<UUID, Long>>(){}.getType();
-    private static final Type DAILY_SELL_TYPE = new TypeToken<Map<UUID, DailySellData>>(){}.getType();
-
     private final MinecraftServer server;
-    private final Path file;
-    private final Path dailyFile;
-    private final Path dailySellFile;
-
-    private final Map<UUID, Long> balances = new HashMap<>();
-    private final Map<UUID, Long> lastDaily = new HashMap<>();
-    private final Map<UUID, DailySellData> dailySells = new HashMap<>();
-    private Map<UUID, String> diskUserCache = null;
+    private final BalanceJournal journal;
+
+    private final BalanceLeaderboard leaderboard = new BalanceLeaderboard();
+    private final AccountLedger ledger;
+    private final PlayerNameIndex names;
     private final PriceRegistry prices;
 
     private Objective objective;
     private final com.reazip.economycraft.shop.ShopManager shop;
     private final com.reazip.economycraft.orders.OrderManager orders;
-    private final Set<UUID> displayed = new HashSet<>();
+    private Map<String, Integer> displayed = new LinkedHashMap<>();
+    private volatile boolean leaderboardDirty;
+    private int ticksSinceRefresh;
 
     public static final long MAX = 999_999_999L;
 
+    public enum TransferResult {
+        SUCCESS,
+        INSUFFICIENT_FUNDS,
+        RECIPIENT_LIMIT,
+        INVALID_AMOUNT,
+        SAME_ACCOUNT
+    }
+
     public EconomyManager(MinecraftServer server) {
         this.server = server;
         Path dir = server.getFile("config/economycraft");
         Path dataDir = dir.resolve("data");
         try { Files.createDirectories(dataDir); } catch (IOException ignored) {}
 
-        this.file = dataDir.resolve("balances.json");
-        this.dailyFile = dataDir.resolve("daily.json");
-        this.dailySellFile = dataDir.resolve("daily_sells.json");
-
+        this.names = new PlayerNameIndex(server.getFile("usercache.json"));
+        this.journal = new BalanceJournal(dataDir);
+        this.ledger = new AccountLedger(journal, leaderboard);
         load();
-        loadDaily();
-        loadDailySells();
+        journal.start();
 
         this.shop = new com.reazip.economycraft.shop.ShopManager(server);
         this.orders = new com.reazip.economycraft.orders.OrderManager(server);
@@ -71,32 +71,11 @@ public class EconomyManager {
     // === Name handling ================================
     // =====================================================================
 
-    private void ensureDiskUserCacheLoaded() {
-        if (diskUserCache != null) return;
-        diskUserCache = new HashMap<>();
-        try {
-            Path uc = server.getFile("usercache.json");
-            if (!Files.exists(uc)) return;
-
-            String json = Files.readString(uc);
-            UserCacheEntry[] entries = GSON.fromJson(json, UserCacheEntry[].class);
-            if (entries == null) return;
-
-            for (UserCacheEntry e : entries) {
-                if (e == null || e.uuid == null || e.uuid.isBlank() || e.name == null || e.name.isBlank()) continue;
-                try {
-                    diskUserCache.put(UUID.fromString(e.uuid), e.name);
-                } catch (IllegalArgumentException ignored) {}
-            }
-        } catch (IOException ignored) {}
-    }
-
     private String resolveName(MinecraftServer server, UUID id) {
         ServerPlayer online = server.getPlayerList().getPlayer(id);
         if (online != null) return IdentityCompat.of(online).name();
-        ensureDiskUserCacheLoaded();
-        String fromDisk = diskUserCache.get(id);
-        if (fromDisk != null && !fromDisk.isBlank()) return fromDisk;
+        String known = names.nameOf(id);
+        if (known != null && !known.isBlank()) return known;
         return id.toString();
     }
 
@@ -111,11 +90,9 @@ public class EconomyManager {
         ServerPlayer online = server.getPlayerList().getPlayerByName(name);
         if (online != null) return online.getUUID();
 
-        // 2) Offline from usercache.json
-        ensureDiskUserCacheLoaded();
-        for (var e : diskUserCache.entrySet()) {
-            if (name.equalsIgnoreCase(e.getValue())) return e.getKey();
-        }
+        // 2) Offline from usercache.json / earlier joins
+        UUID known = names.idOf(name);
+        if (known != null) return known;
 
         // 3) direct UUID string
         try { return UUID.fromString(name); } catch (IllegalArgumentException ignored) {}
@@ -127,103 +104,93 @@ public class EconomyManager {
     // === Balances ========================================================
     // =====================================================================
 
+    // All balance methods are safe to call from any thread.
+
     public Long getBalance(UUID player, boolean newBalanceIfNonExistent) {
-        if (!balances.containsKey(player)) {
-            if (newBalanceIfNonExistent) {
-                long balance = clamp(EconomyConfig.get().startingBalance);
-                balances.put(player, balance);
-                updateLeaderboard();
-                return balance;
-            } else {
-                return null;
-            }
-        }
-        return balances.get(player);
+        if (newBalanceIfNonExistent) return getBalance(player);
+        long balance = ledger.balance(player);
+        return balance == AccountLedger.NONE ? null : balance;
+    }
+
+    /** Returns the player's balance, opening an account with the starting balance if needed. */
+    public long getBalance(UUID player) {
+        if (!ledger.contains(player)) leaderboardDirty = true;
+        return ledger.balanceOrOpen(player);
+    }
+
+    public boolean hasAccount(UUID player) {
+        return ledger.contains(player);
     }
 
     public void addMoney(UUID player, long amount) {
-        balances.put(player, clamp(getBalance(player, true) + amount));
-        updateLeaderboard();
-        save();
+        ledger.add(player, amount);
+        leaderboardDirty = true;
     }
 
     public void setMoney(UUID player, long amount) {
-        balances.put(player, clamp(amount));
-        updateLeaderboard();
-        save();
+        ledger.set(player, amount);
+        leaderboardDirty = true;
     }
 
     public boolean removeMoney(UUID player, long amount) {
-        long balance = getBalance(player, true);
-        if (balance < amount) return false;
-        balances.put(player, clamp(balance - amount));
-        updateLeaderboard();
-        save();
+        if (!ledger.remove(player, amount)) return false;
+        leaderboardDirty = true;
         return true;
     }
 
+    /**
+     * Atomically moves {@code amount} from one account to another. Either both
+     * balances change or neither does; a transfer that would push the
+     * recipient past {@link #MAX} is refused rather than clamped.
+     */
+    public TransferResult transfer(UUID from, UUID to, long amount) {
+        TransferResult result = ledger.transfer(from, to, amount);
+        if (result == TransferResult.SUCCESS) leaderboardDirty = true;
+        return result;
+    }
+
     public boolean pay(UUID from, UUID to, long amount) {
-        long balance = getBalance(from, false);
-        if (balance < amount) return false;
-        removeMoney(from, amount);
-        addMoney(to, amount);
-        return true;
+        return transfer(from, to, amount) == TransferResult.SUCCESS;
     }
 
     // =====================================================================
     // === Load / Save =====================================================
     // =====================================================================
 
-    public void load() {
-        if (Files.exists(file)) {
-            try {
-                String json = Files.readString(file);
-                Map<UUID, Double> map = GSON.fromJson(json, new TypeToken<Map<UUID, Double>>(){}.getType());
-                if (map != null) {
-                    for (Map.Entry<UUID, Double> e : map.entrySet()) {
-                        balances.put(e.getKey(), Math.min(e.getValue().longValue(), MAX));
-                    }
-                }
-            } catch (IOException ignored) {}
+    private void load() {
+        journal.load(new BalanceJournal.Sink() {
+            @Override
+            public void balance(UUID player, long balance) {
+                ledger.loadBalance(player, balance);
+            }
+
+            @Override
+            public void daily(UUID player, long day) {
+                ledger.loadDaily(player, day);
+            }
+
+            @Override
+            public void dailySell(UUID player, long day, long amount) {
+                ledger.loadDailySell(player, day, amount);
+            }
+        });
+        // the ranking takes names from here and from joins only, never under the ledger's locks
+        for (UUID id : ledger.snapshot().keySet()) {
+            String name = names.nameOf(id);
+            if (name != null && !name.isBlank()) leaderboard.rename(id, name);
         }
     }
 
+    /** Blocks until all pending balance changes are written to the journal. */
     public void save() {
-        try {
-            Map<UUID, Long> data = new HashMap<>(balances);
-            String json = GSON.toJson(data, TYPE);
-            Files.writeString(file, json);
-        } catch (IOException ignored) {}
-
-        try {
-            String json = GSON.toJson(lastDaily, new TypeToken<Map<UUID, Long>>(){}.getType());
-            Files.writeString(dailyFile, json);
-        } catch (IOException ignored) {}
-
-        try {
-            String json = GSON.toJson(dailySells, DAILY_SELL_TYPE);
-            Files.writeString(dailySellFile, json);
-        } catch (IOException ignored) {}
-    }
-
-    private void loadDaily() {
-        if (Files.exists(dailyFile)) {
-            try {
-                String json = Files.readString(dailyFile);
-                Map<UUID, Long> map = GSON.fromJson(json, new TypeToken<Map<UUID, Long>>(){}.getType());
-                if (map != null) lastDaily.putAll(map);
-            } catch (IOException ignored) {}
-        }
+        journal.flush();
     }
 
-    private void loadDailySells() {
-        if (Files.exists(dailySellFile)) {
-            try {
-                String json = Files.readString(dailySellFile);
-                Map<UUID, DailySellData> map = GSON.fromJson(json, DAILY_SELL_TYPE);
-                if (map != null) dailySells.putAll(map);
-            } catch (IOException ignored) {}
-        }
+    /** Writes pending shop/order saves, folds the journal into the snapshot files and stops the writers. */
+    public void close() {
+        shop.close();
+        orders.close();
+        journal.close();
     }
 
     // =====================================================================
@@ -251,23 +218,45 @@ public class EconomyManager {
 
     private void setupObjective() {
         Scoreboard board = server.getScoreboard();
-        objective = board.getObjective("eco_balance");
 
-        if (objective == null) {
-            objective = board.addObjective(
-                    "eco_balance",
-                    ObjectiveCriteria.DUMMY,
-                    Component.literal("Balance"),
-                    ObjectiveCriteria.RenderType.INTEGER,
-                    true,
-                    null
-            );
+        // Start from a fresh objective so scores left over from a previous run are dropped.
+        Objective existing = board.getObjective("eco_balance");
+        if (existing != null) {
+            board.removeObjective(existing);
         }
+
+        objective = board.addObjective(
+                "eco_balance",
+                ObjectiveCriteria.DUMMY,
+                Component.literal("Balance"),
+                ObjectiveCriteria.RenderType.INTEGER,
+                true,
+                null
+        );
         board.setDisplayObjective(DisplaySlot.SIDEBAR, objective);
+        displayed.clear();
+        updateLeaderboard();
+    }
+
+    /**
+     * Called once per server tick. Balance changes only mark the leaderboard
+     * dirty; the sidebar is refreshed here at most once every
+     * {@code scoreboard_refresh_ticks} ticks.
+     */
+    public void tick() {
+        shop.flushChanges();
+        orders.flushChanges();
+
+        int cadence = Math.max(1, EconomyConfig.get().scoreboardRefreshTicks);
+        if (ticksSinceRefresh < cadence) ticksSinceRefresh++;
+        if (!leaderboardDirty || ticksSinceRefresh < cadence) return;
         updateLeaderboard();
     }
 
     private void updateLeaderboard() {
+        leaderboardDirty = false;
+        ticksSinceRefresh = 0;
+
         if (!EconomyConfig.get().scoreboardEnabled) {
             Scoreboard board = server.getScoreboard();
             board.setDisplayObjective(DisplaySlot.SIDEBAR, null);
@@ -277,42 +266,32 @@ public class EconomyManager {
             return;
         }
 
-        Scoreboard board = server.getScoreboard();
-        if (objective != null) board.removeObjective(objective);
-
-        objective = board.addObjective(
-                "eco_balance",
-                ObjectiveCriteria.DUMMY,
-                Component.literal("Balance"),
-                ObjectiveCriteria.RenderType.INTEGER,
-                true,
-                null
-        );
-        board.setDisplayObjective(DisplaySlot.SIDEBAR, objective);
-        displayed.clear();
-
-        List<Map.Entry<UUID, Long>> sorted = new ArrayList<>(balances.entrySet());
-        sorted.sort((a, b) -> {
-            int c = Long.compare(b.getValue(), a.getValue());
-            if (c != 0) return c;
-
-            String an = resolveName(server, a.getKey());
-            String bn = resolveName(server, b.getKey());
-            c = String.CASE_INSENSITIVE_ORDER.compare(an, bn);
-            if (c != 0) return c;
+        if (objective == null) {
+            setupObjective();
+            return;
+        }
 
-            return a.getKey().compareTo(b.getKey());
-        });
+        Map<String, Integer> next = new LinkedHashMap<>();
+        for (BalanceLeaderboard.Standing s : getTopBalances(5)) {
+            next.put(s.name(), (int) s.balance());
+        }
+        if (next.equals(displayed)) return;
 
-        for (var e : sorted.stream().limit(5).toList()) {
-            UUID id = e.getKey();
-            String name = resolveName(server, id);
-            board.getOrCreatePlayerScore(
-                    net.minecraft.world.scores.ScoreHolder.forNameOnly(name),
-                    objective
-            ).set(e.getValue().intValue());
-            displayed.add(id);
+        Scoreboard board = server.getScoreboard();
+        for (String name : displayed.keySet()) {
+            if (!next.containsKey(name)) {
+                board.resetSinglePlayerScore(net.minecraft.world.scores.ScoreHolder.forNameOnly(name), objective);
+            }
+        }
+        for (Map.Entry<String, Integer> e : next.entrySet()) {
+            if (!e.getValue().equals(displayed.get(e.getKey()))) {
+                board.getOrCreatePlayerScore(
+                        net.minecraft.world.scores.ScoreHolder.forNameOnly(e.getKey()),
+                        objective
+                ).set(e.getValue());
+            }
         }
+        displayed = next;
     }
 
     public boolean toggleScoreboard() {
@@ -328,6 +307,7 @@ public class EconomyManager {
                 board.removeObjective(objective);
                 objective = null;
             }
+            displayed.clear();
         }
 
         return EconomyConfig.get().scoreboardEnabled;
@@ -349,22 +329,45 @@ public class EconomyManager {
         return prices;
     }
 
-    public Map<UUID, Long> getBalances() {
-        return balances;
+    /** Point-in-time copy of all balances. Use {@link Object2LongMap#getLong} to avoid boxing. */
+    public Object2LongMap<UUID> getBalances() {
+        return ledger.snapshot();
+    }
+
+    /**
+     * Returns the {@code limit} highest balances, read from the maintained
+     * ranking. Accounts without a recorded name are looked up here, so call
+     * this on the server thread.
+     */
+    public List<BalanceLeaderboard.Standing> getTopBalances(int limit) {
+        List<BalanceLeaderboard.Standing> top = new ArrayList<>(leaderboard.top(limit));
+        for (int i = 0; i < top.size(); i++) {
+            BalanceLeaderboard.Standing s = top.get(i);
+            if (s.name() == null) top.set(i, new BalanceLeaderboard.Standing(s.id(), getBestName(s.id()), s.balance()));
+        }
+        return top;
+    }
+
+    public PlayerNameIndex getNames() {
+        return names;
+    }
+
+    /** Records a player's current name (called on join) and refreshes their leaderboard entry. */
+    public void updateName(UUID player, String name) {
+        if (name == null || name.isBlank()) return;
+        names.put(player, name);
+        leaderboard.rename(player, name);
+        leaderboardDirty = true;
     }
 
     public void removePlayer(UUID id) {
-        balances.remove(id);
-        updateLeaderboard();
-        save();
+        if (ledger.delete(id)) leaderboardDirty = true;
     }
 
     public boolean claimDaily(UUID player) {
         long today = LocalDate.now().toEpochDay();
-        long last = lastDaily.getOrDefault(player, -1L);
-        if (last == today) return false;
-        lastDaily.put(player, today);
-        addMoney(player, EconomyConfig.get().dailyAmount);
+        if (!ledger.claimDaily(player, today, EconomyConfig.get().dailyAmount)) return false;
+        leaderboardDirty = true;
         return true;
     }
 
@@ -372,32 +375,14 @@ public class EconomyManager {
         long limit = EconomyConfig.get().dailySellLimit;
         if (limit <= 0) return false;
 
-        DailySellData data = getOrCreateTodaySellData(player);
-        long newTotal = data.amount() + saleAmount;
-        if (newTotal > limit) {
-            return true;
-        }
-
-        dailySells.put(player, new DailySellData(data.day(), newTotal));
-        return false;
+        return ledger.recordSellOverLimit(player, LocalDate.now().toEpochDay(), saleAmount, limit);
     }
 
     public long getDailySellRemaining(UUID player) {
         long limit = EconomyConfig.get().dailySellLimit;
         if (limit <= 0) return Long.MAX_VALUE;
 
-        DailySellData data = getOrCreateTodaySellData(player);
-        return Math.max(0, limit - data.amount());
-    }
-
-    private DailySellData getOrCreateTodaySellData(UUID player) {
-        long today = LocalDate.now().toEpochDay();
-        DailySellData data = dailySells.get(player);
-        if (data == null || data.day() != today) {
-            data = new DailySellData(today, 0L);
-            dailySells.put(player, data);
-        }
-        return data;
+        return Math.max(0, limit - ledger.soldToday(player, LocalDate.now().toEpochDay()));
     }
 
     public void handlePvpKill(ServerPlayer victim, ServerPlayer killer) {
@@ -406,14 +391,13 @@ public class EconomyManager {
         if (victim == null || killer == null) return;
         if (victim.getUUID().equals(killer.getUUID())) return;
 
-        long victimBal = getBalance(victim.getUUID(), true);
+        long victimBal = getBalance(victim.getUUID());
         if (victimBal <= 0L) return;
 
         long loss = (long)Math.floor(pct * victimBal);
         if (loss <= 0L) return;
 
-        removeMoney(victim.getUUID(), loss);
-        addMoney(killer.getUUID(), loss);
+        if (transfer(victim.getUUID(), killer.getUUID(), loss) != TransferResult.SUCCESS) return;
 
         victim.sendSystemMessage(Component.literal(
                 "You lost " + EconomyCraft.formatMoney(loss) + " for being killed by " + killer.getName().getString())
@@ -424,14 +408,4 @@ public class EconomyManager {
                 .withStyle(net.minecraft.ChatFormatting.GREEN));
     }
 
-    private long clamp(long value) {
-        return Math.max(0, Math.min(MAX, value));
-    }
-
-    private static final class UserCacheEntry {
-        String name;
-        String uuid;
-    }
-
-    private record DailySellData(long day, long amount) {}
 }
@@ -0,0 +1,205 @@
+package com.reazip.economycraft;
+
+import com.reazip.economycraft.PriceRegistry.ResolvedPrice;
+import com.reazip.economycraft.util.IdentifierCompat;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.InteractionHand;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Shared inventory scan for {@link SellCommand} and {@link DisposeCommand}.
+ * <p>
+ * {@link #scan} walks the 36 main inventory slots and the offhand once,
+ * resolving each stack's price once, and groups liquidatable stacks by price
+ * key. The resulting {@link Plan} remembers which stack instance and count it
+ * saw in every slot, so a later confirm can check {@link Plan#isCurrent} in
+ * O(slots) and drain the recorded slots directly instead of rescanning.
+ * Slots are addressed through an {@code IntFunction<ItemStack>} (main slots
+ * 0-35, {@link #OFFHAND}) so the bookkeeping does not need a live player.
+ */
+final class Liquidation {
+    static final int MAIN_SLOTS = 36;
+    static final int OFFHAND = -1;
+
+    /** Unit payout for a priced stack, or null if it cannot be liquidated. */
+    @FunctionalInterface
+    interface Pricing {
+        Long unitPrice(PriceRegistry.PriceEntry entry);
+    }
+
+    static final Pricing SELL = entry -> entry.unitSell() > 0 ? entry.unitSell() : null;
+
+    /** Dispose payout: the configured fixed price or the sell price, times the dispose multiplier. */
+    static final Pricing DISPOSE = entry -> {
+        EconomyConfig config = EconomyConfig.get();
+        Long base = config.disposeFixedPricePerItem != null ? config.disposeFixedPricePerItem : SELL.unitPrice(entry);
+        return base == null ? null : Math.round(base * config.disposePriceMultiplier);
+    };
+
+    private Liquidation() {}
+
+    /** All stacks in one inventory that share a price key. */
+    static final class Group {
+        final IdentifierCompat.Id key;
+        final long unitPrice;
+        final String name;
+        private final List<Integer> slots = new ArrayList<>(4);
+        private int count;
+
+        private Group(IdentifierCompat.Id key, long unitPrice, String name) {
+            this.key = key;
+            this.unitPrice = unitPrice;
+            this.name = name;
+        }
+
+        int count() {
+            return count;
+        }
+
+        /** Payout for {@code amount} items, or null on overflow. */
+        Long total(int amount) {
+            try {
+                return Math.multiplyExact(unitPrice, amount);
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+    }
+
+    static final class Plan {
+        private final Map<IdentifierCompat.Id, Group> groups = new LinkedHashMap<>();
+        // Stack instance and count seen per slot; index MAIN_SLOTS is the offhand.
+        private final ItemStack[] seen = new ItemStack[MAIN_SLOTS + 1];
+        private final int[] seenCounts = new int[MAIN_SLOTS + 1];
+
+        Collection<Group> groups() {
+            return Collections.unmodifiableCollection(groups.values());
+        }
+
+        Group group(IdentifierCompat.Id key) {
+            return groups.get(key);
+        }
+
+        int itemCount() {
+            int n = 0;
+            for (Group g : groups.values()) n += g.count;
+            return n;
+        }
+
+        /** Payout for every group, or null on overflow. */
+        Long total() {
+            long sum = 0;
+            for (Group g : groups.values()) {
+                Long t = g.total(g.count);
+                if (t == null) return null;
+                try {
+                    sum = Math.addExact(sum, t);
+                } catch (ArithmeticException e) {
+                    return null;
+                }
+            }
+            return sum;
+        }
+
+        boolean isCurrent(ServerPlayer player, PriceRegistry prices) {
+            return isCurrent(slot -> stackAt(player, slot), prices);
+        }
+
+        /**
+         * True if every slot this plan drains still holds the same stack with
+         * the same count, is still sellable and still resolves to its group's
+         * price key. Stacks change in place (a bundle being filled, a potion's
+         * contents), so instance and count alone are not enough.
+         */
+        boolean isCurrent(IntFunction<ItemStack> slots, PriceRegistry prices) {
+            for (Group g : groups.values()) {
+                for (int slot : g.slots) {
+                    ItemStack now = slots.apply(slot);
+                    int i = index(slot);
+                    if (now != seen[i] || now.getCount() != seenCounts[i]
+                            || prices.isSellBlockedByDamage(now) || prices.isSellBlockedByContents(now)) {
+                        return false;
+                    }
+                    ResolvedPrice rp = prices.resolve(now);
+                    if (rp == null || !g.key.equals(rp.key())) return false;
+                }
+            }
+            return true;
+        }
+
+        /** Removes up to {@code amount} items of {@code group}; only valid while {@link #isCurrent}. */
+        int take(ServerPlayer player, Group group, int amount) {
+            int remaining = amount;
+            for (int slot : group.slots) {
+                if (remaining <= 0) break;
+                ItemStack stack = stackAt(player, slot);
+                int remove = Math.min(remaining, stack.getCount());
+                stack.shrink(remove);
+                remaining -= remove;
+                if (stack.isEmpty()) clear(player, slot);
+            }
+            return amount - remaining;
+        }
+
+        /** Removes every planned group; returns the number of items removed. */
+        int takeAll(ServerPlayer player) {
+            int removed = 0;
+            for (Group g : groups.values()) removed += take(player, g, g.count);
+            return removed;
+        }
+    }
+
+    static Plan scan(ServerPlayer player, PriceRegistry prices, Pricing pricing) {
+        return scan(slot -> stackAt(player, slot), prices, pricing);
+    }
+
+    static Plan scan(IntFunction<ItemStack> slots, PriceRegistry prices, Pricing pricing) {
+        Plan plan = new Plan();
+        for (int slot = 0; slot < MAIN_SLOTS; slot++) {
+            add(plan, slots.apply(slot), prices, pricing, slot);
+        }
+        add(plan, slots.apply(OFFHAND), prices, pricing, OFFHAND);
+        return plan;
+    }
+
+    private static void add(Plan plan, ItemStack stack, PriceRegistry prices, Pricing pricing, int slot) {
+        if (stack.isEmpty()) return;
+        if (prices.isSellBlockedByDamage(stack) || prices.isSellBlockedByContents(stack)) return;
+
+        ResolvedPrice rp = prices.resolve(stack);
+        if (rp == null || rp.entry() == null) return;
+        Long unit = pricing.unitPrice(rp.entry());
+        if (unit == null) return;
+
+        Group group = plan.groups.get(rp.key());
+        if (group == null) {
+            group = new Group(rp.key(), unit, stack.getHoverName().getString());
+            plan.groups.put(rp.key(), group);
+        }
+        group.slots.add(slot);
+        group.count += stack.getCount();
+
+        int i = index(slot);
+        plan.seen[i] = stack;
+        plan.seenCounts[i] = stack.getCount();
+    }
+
+    private static int index(int slot) {
+        return slot == OFFHAND ? MAIN_SLOTS : slot;
+    }
+
+    private static ItemStack stackAt(ServerPlayer player, int slot) {
+        return slot == OFFHAND ? player.getOffhandItem() : player.getInventory().getItem(slot);
+    }
+
+    private static void clear(ServerPlayer player, int slot) {
+        if (slot == OFFHAND) {
+            player.setItemInHand(InteractionHand.OFF_HAND, ItemStack.EMPTY);
+        } else {
+            player.getInventory().setItem(slot, ItemStack.EMPTY);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.reazip.economycraft;
+
+import com.reazip.economycraft.util.IdentityCompat;
+
+import java.util.*;
+
+/**
+ * Prefix trie over lower-cased player names. Each name carries a score (last
+ * seen time); every node tracks an upper bound of the scores below it, so
+ * {@link #top(String, int)} can walk best-first and stop after {@code limit}
+ * hits instead of visiting every name under the prefix.
+ * <p>
+ * Not thread-safe; {@link PlayerNameIndex} guards it.
+ */
+final class NameTrie {
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private Node root = new Node();
+
+    private static final class Node {
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        int childCount;
+
+        // Set when a name ends at this node.
+        UUID id;
+        String name;
+        long score;
+
+        /** Highest score ever stored in this subtree; stays an upper bound after removals. */
+        long best = Long.MIN_VALUE;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, 0, childCount, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, 0, childCount, c);
+            if (i >= 0) return children[i];
+
+            int at = -i - 1;
+            if (childCount == keys.length) {
+                int cap = Math.max(2, keys.length * 2);
+                keys = Arrays.copyOf(keys, cap);
+                children = Arrays.copyOf(children, cap);
+            }
+            System.arraycopy(keys, at, keys, at + 1, childCount - at);
+            System.arraycopy(children, at, children, at + 1, childCount - at);
+            Node n = new Node();
+            keys[at] = c;
+            children[at] = n;
+            childCount++;
+            return n;
+        }
+    }
+
+    private record Candidate(Node node, boolean terminal, long priority, long seq) {}
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator
+            .comparingLong(Candidate::priority).reversed()
+            .thenComparingLong(Candidate::seq);
+
+    void clear() {
+        root = new Node();
+    }
+
+    void put(String key, UUID id, String name, long score) {
+        Node n = root;
+        n.best = Math.max(n.best, score);
+        for (int i = 0; i < key.length(); i++) {
+            n = n.childOrCreate(key.charAt(i));
+            n.best = Math.max(n.best, score);
+        }
+        n.id = id;
+        n.name = name;
+        n.score = score;
+    }
+
+    UUID get(String key) {
+        Node n = find(key);
+        return n != null ? n.id : null;
+    }
+
+    /** Removes {@code key} if it currently maps to {@code id}. */
+    void remove(String key, UUID id) {
+        Node n = find(key);
+        if (n != null && id.equals(n.id)) {
+            n.id = null;
+            n.name = null;
+        }
+    }
+
+    /** Returns up to {@code limit} names starting with {@code prefix}, highest score first. */
+    List<IdentityCompat.PlayerRef> top(String prefix, int limit) {
+        Node start = find(prefix);
+        if (start == null || limit <= 0) return List.of();
+
+        List<IdentityCompat.PlayerRef> out = new ArrayList<>(Math.min(limit, 16));
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(BEST_FIRST);
+        long seq = 0;
+        queue.add(new Candidate(start, false, start.best, seq++));
+
+        while (!queue.isEmpty() && out.size() < limit) {
+            Candidate c = queue.poll();
+            Node n = c.node();
+            if (c.terminal()) {
+                out.add(new IdentityCompat.PlayerRef(n.id, n.name));
+                continue;
+            }
+            if (n.id != null) {
+                queue.add(new Candidate(n, true, n.score, seq++));
+            }
+            for (int i = 0; i < n.childCount; i++) {
+                Node child = n.children[i];
+                queue.add(new Candidate(child, false, child.best, seq++));
+            }
+        }
+        return out;
+    }
+
+    private Node find(String key) {
+        Node n = root;
+        for (int i = 0; i < key.length() && n != null; i++) {
+            n = n.child(key.charAt(i));
+        }
+        return n;
+    }
+}
@@ -0,0 +1,144 @@
+package com.reazip.economycraft;
+
+import com.google.gson.Gson;
+import com.mojang.logging.LogUtils;
+import com.reazip.economycraft.util.IdentityCompat;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Bidirectional player name index (UUID → name, lower-cased name → UUID) fed
+ * from {@code usercache.json} and from players joining.
+ * <p>
+ * The user cache is re-read lazily when its modification time changes (checked
+ * at most every {@link #RELOAD_CHECK_INTERVAL_MS}). Names seen on join are kept
+ * separately and re-applied after every reload, so they always win over a
+ * stale cache. Lower-cased names live in a {@link NameTrie} scored by last
+ * seen time (the cache's {@code expiresOn} minus its one month lifetime, or
+ * the join/quit time), so prefix suggestions favour recently active players.
+ */
+public final class PlayerNameIndex {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson GSON = new Gson();
+    private static final long RELOAD_CHECK_INTERVAL_MS = 5_000L;
+    private static final long CACHE_LIFETIME_MS = 30L * 24 * 60 * 60 * 1000;
+    private static final DateTimeFormatter EXPIRES_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss Z", Locale.ROOT);
+
+    private final Path userCacheFile;
+    private final Map<UUID, String> nameById = new HashMap<>();
+    private final Map<UUID, Long> lastSeenById = new HashMap<>();
+    private final NameTrie idByName = new NameTrie();
+    private final Map<UUID, String> seen = new HashMap<>();
+    private final Map<UUID, Long> seenAt = new HashMap<>();
+
+    private long loadedMtime = Long.MIN_VALUE;
+    private long lastCheck;
+
+    public PlayerNameIndex(Path userCacheFile) {
+        this.userCacheFile = userCacheFile;
+    }
+
+    /** Records the current name of a player and marks them active now, e.g. on join or quit. */
+    public synchronized void put(UUID id, String name) {
+        if (id == null || name == null || name.isBlank()) return;
+        long now = System.currentTimeMillis();
+        seen.put(id, name);
+        seenAt.put(id, now);
+        index(id, name, now);
+    }
+
+    public synchronized String nameOf(UUID id) {
+        refreshIfChanged();
+        return nameById.get(id);
+    }
+
+    public synchronized UUID idOf(String name) {
+        if (name == null || name.isBlank()) return null;
+        refreshIfChanged();
+        return idByName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns at most {@code limit} known players whose name starts with
+     * {@code prefix} (case-insensitive), most recently seen first. Cost is
+     * proportional to {@code limit}, not to the number of matches.
+     */
+    public synchronized List<IdentityCompat.PlayerRef> suggest(String prefix, int limit) {
+        refreshIfChanged();
+        return idByName.top(prefix == null ? "" : prefix.toLowerCase(Locale.ROOT), limit);
+    }
+
+    // =====================================================================
+    // === Helpers =========================================================
+    // =====================================================================
+
+    private void index(UUID id, String name, long lastSeen) {
+        String previous = nameById.put(id, name);
+        if (previous != null && !previous.equalsIgnoreCase(name)) {
+            idByName.remove(previous.toLowerCase(Locale.ROOT), id);
+        }
+        Long known = lastSeenById.get(id);
+        long score = known != null ? Math.max(known, lastSeen) : lastSeen;
+        lastSeenById.put(id, score);
+        idByName.put(name.toLowerCase(Locale.ROOT), id, name, score);
+    }
+
+    private void refreshIfChanged() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheck < RELOAD_CHECK_INTERVAL_MS) return;
+        lastCheck = now;
+
+        long mtime;
+        try {
+            if (Files.notExists(userCacheFile)) return;
+            mtime = Files.getLastModifiedTime(userCacheFile).toMillis();
+        } catch (IOException e) {
+            return;
+        }
+        if (mtime == loadedMtime) return;
+        loadedMtime = mtime;
+
+        UserCacheEntry[] entries;
+        try {
+            entries = GSON.fromJson(Files.readString(userCacheFile), UserCacheEntry[].class);
+        } catch (Exception e) {
+            LOGGER.warn("[EconomyCraft] Failed to read {}", userCacheFile, e);
+            return;
+        }
+
+        nameById.clear();
+        lastSeenById.clear();
+        idByName.clear();
+        if (entries != null) {
+            for (UserCacheEntry e : entries) {
+                if (e == null || e.uuid == null || e.uuid.isBlank() || e.name == null || e.name.isBlank()) continue;
+                try {
+                    index(UUID.fromString(e.uuid), e.name, lastSeen(e.expiresOn));
+                } catch (IllegalArgumentException ignored) {}
+            }
+        }
+        seen.forEach((id, name) -> index(id, name, seenAt.getOrDefault(id, 0L)));
+    }
+
+    private static long lastSeen(String expiresOn) {
+        if (expiresOn == null) return 0L;
+        try {
+            return ZonedDateTime.parse(expiresOn, EXPIRES_FORMAT).toInstant().toEpochMilli() - CACHE_LIFETIME_MS;
+        } catch (DateTimeParseException e) {
+            return 0L;
+        }
+    }
+
+    private static final class UserCacheEntry {
+        String name;
+        String uuid;
+        String expiresOn;
+    }
+}
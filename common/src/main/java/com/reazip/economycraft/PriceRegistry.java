@@ -6,8 +6,10 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.mojang.logging.LogUtils;
 import net.minecraft.core.registries.BuiltInRegistries;
+import com.reazip.economycraft.storage.AtomicFiles;
 import com.reazip.economycraft.util.IdentifierCompat;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.core.Holder;
 import net.minecraft.resources.ResourceKey;
@@ -29,6 +31,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class PriceRegistry {
     private static final Logger LOGGER = LogUtils.getLogger();
@@ -39,10 +42,25 @@ public final class PriceRegistry {
     private final Path file;
     private final Map<IdentifierCompat.Id, PriceEntry> prices = new LinkedHashMap<>();
 
+    // Resolution caches, cleared on reload(). Plain items are keyed by the Item
+    // itself (identity hash); potions, tipped arrows and enchanted books also by
+    // the component their price keys are derived from.
+    private static final ResolvedPrice UNPRICED = new ResolvedPrice(null, null);
+    private static final int MAX_VARIANT_CACHE = 4096;
+    private final Map<Item, ResolvedPrice> plainCache = new ConcurrentHashMap<>();
+    private final Map<VariantKey, ResolvedPrice> variantCache = new ConcurrentHashMap<>();
+    private volatile CategoryTree categories = CategoryTree.EMPTY;
+    private volatile int generation;
+
     public record ResolvedPrice(IdentifierCompat.Id key, PriceEntry entry) {}
 
+    private record VariantKey(Item item, Object data) {}
+
     public PriceRegistry(MinecraftServer server) {
-        Path dir = server.getFile("config/economycraft");
+        this(server.getFile("config/economycraft"));
+    }
+
+    PriceRegistry(Path dir) {
         try {
             Files.createDirectories(dir);
         } catch (IOException e) {
@@ -62,7 +80,19 @@ public final class PriceRegistry {
 
     public void reload() {
         this.prices.clear();
+        this.plainCache.clear();
+        this.variantCache.clear();
+        loadEntries();
+        this.categories = CategoryTree.build(prices.values());
+        this.generation++;
+    }
+
+    /** Changes on every {@link #reload()}; callers key caches of rendered prices on it. */
+    public int generation() {
+        return generation;
+    }
 
+    private void loadEntries() {
         if (Files.notExists(file)) {
             LOGGER.warn("[EconomyCraft] prices.json not found at {} (prices map will be empty).", file);
             return;
@@ -131,10 +161,44 @@ public final class PriceRegistry {
     public ResolvedPrice resolve(ItemStack stack) {
         if (stack == null || stack.isEmpty()) return null;
 
+        Item item = stack.getItem();
+        Object data = variantData(stack);
+        ResolvedPrice cached;
+        if (data == null) {
+            cached = plainCache.get(item);
+            if (cached == null) {
+                cached = resolveUncached(stack);
+                plainCache.put(item, cached);
+            }
+        } else {
+            VariantKey key = new VariantKey(item, data);
+            cached = variantCache.get(key);
+            if (cached == null) {
+                cached = resolveUncached(stack);
+                if (variantCache.size() >= MAX_VARIANT_CACHE) variantCache.clear();
+                variantCache.put(key, cached);
+            }
+        }
+        return cached == UNPRICED ? null : cached;
+    }
+
+    private ResolvedPrice resolveUncached(ItemStack stack) {
         for (IdentifierCompat.Id key : resolvePriceKeys(stack)) {
             PriceEntry p = prices.get(key);
             if (p != null) return new ResolvedPrice(key, p);
         }
+        return UNPRICED;
+    }
+
+    /** The component {@link #resolvePriceKeys} reads for this stack, or null if only the item matters. */
+    private static Object variantData(ItemStack stack) {
+        if (stack.is(Items.POTION) || stack.is(Items.SPLASH_POTION) || stack.is(Items.LINGERING_POTION) || stack.is(Items.TIPPED_ARROW)) {
+            PotionContents contents = stack.get(DataComponents.POTION_CONTENTS);
+            return contents != null ? contents : PotionContents.EMPTY;
+        }
+        if (stack.is(Items.ENCHANTED_BOOK)) {
+            return stack.getOrDefault(DataComponents.STORED_ENCHANTMENTS, ItemEnchantments.EMPTY);
+        }
         return null;
     }
 
@@ -180,79 +244,119 @@ public final class PriceRegistry {
     }
 
     public Set<String> categories() {
-        Set<String> out = new LinkedHashSet<>();
-        for (PriceEntry p : prices.values()) out.add(p.category());
-        return out;
+        return categories.all;
     }
 
     public Set<String> buyCategories() {
-        Set<String> out = new LinkedHashSet<>();
-        for (PriceEntry p : prices.values()) {
-            if (p.unitBuy() > 0) {
-                out.add(p.category());
-            }
-        }
-        return out;
+        return categories.buyable;
     }
 
     public List<PriceEntry> byCategory(String category) {
         if (category == null) return List.of();
-        String c = category.trim().toLowerCase(Locale.ROOT);
-
-        List<PriceEntry> out = new ArrayList<>();
-        for (PriceEntry p : prices.values()) {
-            if (p.category() != null && p.category().trim().toLowerCase(Locale.ROOT).equals(c)) {
-                out.add(p);
-            }
-        }
-        return out;
+        return categories.entries.getOrDefault(normalizeCategory(category), List.of());
     }
 
     public List<PriceEntry> buyableByCategory(String category) {
         if (category == null) return List.of();
-        String c = category.trim().toLowerCase(Locale.ROOT);
-
-        List<PriceEntry> out = new ArrayList<>();
-        for (PriceEntry p : prices.values()) {
-            if (p.unitBuy() <= 0) continue;
-            if (p.category() != null && p.category().trim().toLowerCase(Locale.ROOT).equals(c)) {
-                out.add(p);
-            }
-        }
-        return out;
+        return categories.buyableEntries.getOrDefault(normalizeCategory(category), List.of());
     }
 
     public List<String> buyTopCategories() {
-        LinkedHashSet<String> out = new LinkedHashSet<>();
-        for (PriceEntry p : prices.values()) {
-            if (p.unitBuy() <= 0 || p.category() == null) continue;
-            String cat = p.category();
-            int dot = cat.indexOf('.');
-            if (dot > 0) {
-                out.add(cat.substring(0, dot));
-            } else {
-                out.add(cat);
-            }
-        }
-        return new ArrayList<>(out);
+        return categories.buyableTops;
     }
 
     public List<String> buySubcategories(String topCategory) {
         if (topCategory == null || topCategory.isBlank()) return List.of();
-        String root = topCategory.trim().toLowerCase(Locale.ROOT);
-        LinkedHashSet<String> out = new LinkedHashSet<>();
-        for (PriceEntry p : prices.values()) {
-            if (p.unitBuy() <= 0 || p.category() == null) continue;
-            String cat = p.category().trim();
-            int dot = cat.indexOf('.');
-            if (dot <= 0 || dot >= cat.length() - 1) continue;
-            String base = cat.substring(0, dot).toLowerCase(Locale.ROOT);
-            String sub = cat.substring(dot + 1);
-            if (base.equals(root)) {
-                out.add(sub);
+        return categories.buyableSubs.getOrDefault(normalizeCategory(topCategory), List.of());
+    }
+
+    /** True if {@code category} has buyable entries, itself or (for a top category) in a subcategory. */
+    public boolean hasBuyableItems(String category) {
+        if (category == null || category.isBlank()) return false;
+        String key = normalizeCategory(category);
+        return categories.buyableEntries.containsKey(key)
+                || (!category.contains(".") && categories.buyableSubs.containsKey(key));
+    }
+
+    private static String normalizeCategory(String category) {
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // =====================================================================
+    // === Category index ==================================================
+    // =====================================================================
+
+    /**
+     * Immutable category lookups built once per {@link #reload()}. Map keys
+     * are normalized (trimmed, lower-cased); names keep their configured
+     * spelling and first-seen order.
+     */
+    private static final class CategoryTree {
+        static final CategoryTree EMPTY = build(List.of());
+
+        final Set<String> all;
+        final Set<String> buyable;
+        final List<String> buyableTops;
+        final Map<String, List<PriceEntry>> entries;
+        final Map<String, List<PriceEntry>> buyableEntries;
+        final Map<String, List<String>> buyableSubs;
+
+        private CategoryTree(Set<String> all, Set<String> buyable, List<String> buyableTops,
+                             Map<String, List<PriceEntry>> entries, Map<String, List<PriceEntry>> buyableEntries,
+                             Map<String, List<String>> buyableSubs) {
+            this.all = all;
+            this.buyable = buyable;
+            this.buyableTops = buyableTops;
+            this.entries = entries;
+            this.buyableEntries = buyableEntries;
+            this.buyableSubs = buyableSubs;
+        }
+
+        static CategoryTree build(Collection<PriceEntry> prices) {
+            Set<String> all = new LinkedHashSet<>();
+            Set<String> buyable = new LinkedHashSet<>();
+            Set<String> tops = new LinkedHashSet<>();
+            Map<String, List<PriceEntry>> entries = new HashMap<>();
+            Map<String, List<PriceEntry>> buyableEntries = new HashMap<>();
+            Map<String, Set<String>> subs = new HashMap<>();
+
+            for (PriceEntry p : prices) {
+                String cat = p.category();
+                if (cat == null) continue;
+                String key = normalizeCategory(cat);
+                all.add(cat);
+                entries.computeIfAbsent(key, k -> new ArrayList<>()).add(p);
+                if (p.unitBuy() <= 0) continue;
+
+                buyable.add(cat);
+                buyableEntries.computeIfAbsent(key, k -> new ArrayList<>()).add(p);
+                int dot = cat.indexOf('.');
+                tops.add(dot > 0 ? cat.substring(0, dot) : cat);
+
+                String trimmed = cat.trim();
+                int tdot = trimmed.indexOf('.');
+                if (tdot > 0 && tdot < trimmed.length() - 1) {
+                    subs.computeIfAbsent(trimmed.substring(0, tdot).toLowerCase(Locale.ROOT), k -> new LinkedHashSet<>())
+                            .add(trimmed.substring(tdot + 1));
+                }
             }
+
+            Map<String, List<String>> frozenSubs = new HashMap<>();
+            subs.forEach((k, v) -> frozenSubs.put(k, List.copyOf(v)));
+            return new CategoryTree(
+                    Collections.unmodifiableSet(all),
+                    Collections.unmodifiableSet(buyable),
+                    List.copyOf(tops),
+                    freeze(entries),
+                    freeze(buyableEntries),
+                    Map.copyOf(frozenSubs));
+        }
+
+        private static Map<String, List<PriceEntry>> freeze(Map<String, List<PriceEntry>> map) {
+            Map<String, List<PriceEntry>> out = new HashMap<>();
+            map.forEach((k, v) -> out.put(k, List.copyOf(v)));
+            return Map.copyOf(out);
         }
-        return new ArrayList<>(out);
     }
 
     private void createFromBundledDefault() {
@@ -307,7 +411,7 @@ public final class PriceRegistry {
 
         if (added > 0) {
             try {
-                Files.writeString(file, GSON.toJson(userRoot), StandardCharsets.UTF_8);
+                AtomicFiles.write(file, GSON.toJson(userRoot), 0);
             } catch (IOException ex) {
                 LOGGER.error("[EconomyCraft] Failed to write merged prices.json at {}", file, ex);
             }
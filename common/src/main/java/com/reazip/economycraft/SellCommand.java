@@ -23,6 +23,7 @@ import static net.minecraft.commands.Commands.literal;
 
 public final class SellCommand {
     private static final Map<UUID, PendingSale> PENDING = new HashMap<>();
+    private static final Map<UUID, PendingInventorySale> PENDING_INVENTORY = new HashMap<>();
     private static final long CONFIRM_EXPIRY_MS = 20_000L;
 
     private SellCommand() {}
@@ -32,6 +33,9 @@ public final class SellCommand {
                 .then(literal("all")
                         .executes(SellCommand::previewSellAll)
                         .then(literal("confirm").executes(SellCommand::confirmSellAll)))
+                .then(literal("inventory")
+                        .executes(SellCommand::previewSellInventory)
+                        .then(literal("confirm").executes(SellCommand::confirmSellInventory)))
                 .then(argument("amount", IntegerArgumentType.integer(1))
                         .executes(ctx -> sellMainHand(ctx, IntegerArgumentType.getInteger(ctx, "amount"))))
                 .executes(ctx -> sellMainHand(ctx, -1));
@@ -129,7 +133,9 @@ public final class SellCommand {
             return 0;
         }
 
-        int totalCount = countMatchingSellable(player, prices, resolved.key());
+        Liquidation.Plan plan = Liquidation.scan(player, prices, Liquidation.SELL);
+        Liquidation.Group group = plan.group(resolved.key());
+        int totalCount = group != null ? group.count() : 0;
         if (totalCount <= 0) {
             source.sendFailure(Component.literal("This item cannot be sold.").withStyle(ChatFormatting.RED));
             return 0;
@@ -143,22 +149,14 @@ public final class SellCommand {
 
         IdentifierCompat.Id heldItemId = IdentifierCompat.wrap(net.minecraft.core.registries.BuiltInRegistries.ITEM.getKey(hand.getItem()));
         PENDING.put(player.getUUID(), new PendingSale(resolved.key(), totalCount, total,
-                System.currentTimeMillis() + CONFIRM_EXPIRY_MS, heldItemId));
+                System.currentTimeMillis() + CONFIRM_EXPIRY_MS, heldItemId, plan));
 
         String itemName = hand.getHoverName().getString();
         MutableComponent base = Component.literal("This will sell " + totalCount + "x " + itemName +
                         " for " + EconomyCraft.formatMoney(total) + ". ")
                 .withStyle(ChatFormatting.YELLOW);
 
-        ClickEvent ev = ChatCompat.runCommandEvent("/sell all confirm");
-        if (ev != null) {
-            player.sendSystemMessage(base.append(Component.literal("[CONFIRM]")
-                    .withStyle(s -> s.withUnderlined(true).withColor(ChatFormatting.GREEN).withClickEvent(ev))));
-        } else {
-            player.sendSystemMessage(base);
-            ChatCompat.sendRunCommandTellraw(player, "", "[CONFIRM]", "/sell all confirm");
-        }
-
+        sendConfirmPrompt(player, base, "/sell all confirm");
         return totalCount;
     }
 
@@ -204,8 +202,13 @@ public final class SellCommand {
             return 0;
         }
 
-        int available = countMatchingSellable(player, prices, pending.key());
-        if (available < pending.count()) {
+        // Reuse the preview's scan unless the inventory moved since then.
+        Liquidation.Plan plan = pending.plan();
+        if (!plan.isCurrent(player, prices)) {
+            plan = Liquidation.scan(player, prices, Liquidation.SELL);
+        }
+        Liquidation.Group group = plan.group(pending.key());
+        if (group == null || group.count() < pending.count()) {
             source.sendFailure(Component.literal("Items changed. Run /sell all again.").withStyle(ChatFormatting.RED));
             PENDING.remove(player.getUUID());
             return 0;
@@ -216,7 +219,7 @@ public final class SellCommand {
         }
 
         String itemName = hand.getHoverName().getString();
-        removeMatching(player, prices, pending.key(), pending.count());
+        plan.take(player, group, pending.count());
         manager.addMoney(player.getUUID(), pending.total());
 
         Component msg = Component.literal("Successfully sold " + pending.count() + "x " +
@@ -227,60 +230,75 @@ public final class SellCommand {
         return pending.count();
     }
 
-    private static int countMatchingSellable(ServerPlayer player, PriceRegistry prices, IdentifierCompat.Id key) {
-        var inv = player.getInventory();
-        int total = 0;
-        for (int i = 0; i < 36; i++) {
-            ItemStack stack = inv.getItem(i);
-            if (isMatchingSellable(prices, stack, key)) {
-                total += stack.getCount();
-            }
+    private static int previewSellInventory(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        ServerPlayer player = getPlayer(source);
+        if (player == null) return 0;
+
+        EconomyManager manager = EconomyCraft.getManager(source.getServer());
+        Liquidation.Plan plan = Liquidation.scan(player, manager.getPrices(), Liquidation.SELL);
+        int count = plan.itemCount();
+        if (count <= 0) {
+            source.sendFailure(Component.literal("You have no items that can be sold.").withStyle(ChatFormatting.RED));
+            return 0;
         }
 
-        ItemStack offhand = player.getOffhandItem();
-        if (isMatchingSellable(prices, offhand, key)) {
-            total += offhand.getCount();
+        Long total = plan.total();
+        if (total == null) {
+            source.sendFailure(Component.literal("Sale amount is too large.").withStyle(ChatFormatting.RED));
+            return 0;
         }
-        return total;
+
+        PENDING_INVENTORY.put(player.getUUID(), new PendingInventorySale(plan, total,
+                System.currentTimeMillis() + CONFIRM_EXPIRY_MS));
+
+        MutableComponent base = Component.literal("This will sell " + count + " items (" + plan.groups().size() +
+                        " kinds) for " + EconomyCraft.formatMoney(total) + ". ")
+                .withStyle(ChatFormatting.YELLOW);
+        sendConfirmPrompt(player, base, "/sell inventory confirm");
+        return count;
     }
 
-    private static void removeMatching(ServerPlayer player, PriceRegistry prices, IdentifierCompat.Id key, int toRemove) {
-        var inv = player.getInventory();
-        int remaining = toRemove;
-        for (int i = 0; i < 36; i++) {
-            ItemStack stack = inv.getItem(i);
-            remaining = drainStack(prices, stack, key, remaining);
-            if (stack.isEmpty()) {
-                inv.setItem(i, ItemStack.EMPTY);
-            }
-            if (remaining <= 0) return;
-        }
+    private static int confirmSellInventory(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        ServerPlayer player = getPlayer(source);
+        if (player == null) return 0;
 
-        ItemStack offhand = player.getOffhandItem();
-        remaining = drainStack(prices, offhand, key, remaining);
-        if (offhand.isEmpty()) {
-            player.setItemInHand(net.minecraft.world.InteractionHand.OFF_HAND, ItemStack.EMPTY);
+        PendingInventorySale pending = PENDING_INVENTORY.remove(player.getUUID());
+        if (pending == null || pending.expiresAt() < System.currentTimeMillis()) {
+            source.sendFailure(Component.literal("No pending sale. Run /sell inventory again.").withStyle(ChatFormatting.RED));
+            return 0;
         }
-    }
 
-    private static int drainStack(PriceRegistry prices, ItemStack stack, IdentifierCompat.Id key, int remaining) {
-        if (remaining <= 0) return 0;
-        if (!isMatchingSellable(prices, stack, key)) return remaining;
+        EconomyManager manager = EconomyCraft.getManager(source.getServer());
+        if (!pending.plan().isCurrent(player, manager.getPrices())) {
+            source.sendFailure(Component.literal("Items changed. Run /sell inventory again.").withStyle(ChatFormatting.RED));
+            return 0;
+        }
 
-        int remove = Math.min(remaining, stack.getCount());
-        stack.shrink(remove);
-        if (stack.isEmpty()) {
-            stack.setCount(0);
+        if (EconomyConfig.get().dailySellLimit > 0 && manager.tryRecordDailySell(player.getUUID(), pending.total())) {
+            return handleDailyLimitFailure(manager, player, source);
         }
-        return remaining - remove;
+
+        // One inventory pass and one balance change for the whole sale.
+        int sold = pending.plan().takeAll(player);
+        manager.addMoney(player.getUUID(), pending.total());
+
+        player.sendSystemMessage(Component.literal("Successfully sold " + sold + " items for " +
+                        EconomyCraft.formatMoney(pending.total()) + ".")
+                .withStyle(ChatFormatting.GREEN));
+        return sold;
     }
 
-    private static boolean isMatchingSellable(PriceRegistry prices, ItemStack stack, IdentifierCompat.Id key) {
-        if (stack == null || stack.isEmpty()) return false;
-        if (prices.isSellBlockedByDamage(stack)) return false;
-        if (prices.isSellBlockedByContents(stack)) return false;
-        ResolvedPrice rp = prices.resolve(stack);
-        return rp != null && key.equals(rp.key()) && prices.getUnitSell(stack) != null;
+    private static void sendConfirmPrompt(ServerPlayer player, MutableComponent base, String command) {
+        ClickEvent ev = ChatCompat.runCommandEvent(command);
+        if (ev != null) {
+            player.sendSystemMessage(base.append(Component.literal("[CONFIRM]")
+                    .withStyle(s -> s.withUnderlined(true).withColor(ChatFormatting.GREEN).withClickEvent(ev))));
+        } else {
+            player.sendSystemMessage(base);
+            ChatCompat.sendRunCommandTellraw(player, "", "[CONFIRM]", command);
+        }
     }
 
     private static Long safeMultiply(long value, int count) {
@@ -301,7 +319,9 @@ public final class SellCommand {
     }
 
     private record PendingSale(IdentifierCompat.Id key, int count, long total, long expiresAt,
-                               IdentifierCompat.Id heldItemId) {}
+                               IdentifierCompat.Id heldItemId, Liquidation.Plan plan) {}
+
+    private record PendingInventorySale(Liquidation.Plan plan, long total, long expiresAt) {}
 
     private static int handleDailyLimitFailure(EconomyManager manager, ServerPlayer player, CommandSourceStack source) {
         long remaining = manager.getDailySellRemaining(player.getUUID());
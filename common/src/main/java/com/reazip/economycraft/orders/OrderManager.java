@@ -6,33 +6,51 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.mojang.serialization.JsonOps;
 import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
 import net.minecraft.resources.RegistryOps;
 import com.reazip.economycraft.util.IdentifierCompat;
+import com.reazip.economycraft.util.ChangeBus;
+import com.reazip.economycraft.EconomyConfig;
+import com.reazip.economycraft.storage.BinaryFormat;
+import com.reazip.economycraft.storage.SnapshotWriter;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Item;
 
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 
 /** Manages order requests and deliveries. */
 public class OrderManager {
     private static final Gson GSON = new Gson();
+    private static final int BINARY_VERSION = 1;
     private final MinecraftServer server;
-    private final Path file;
+    private final Path jsonFile;
+    private final Path binaryFile;
+    private final boolean binary;
+    private final SnapshotWriter<Snapshot> saver;
     private final Map<Integer, OrderRequest> requests = new HashMap<>();
     private final Map<UUID, List<ItemStack>> deliveries = new HashMap<>();
     private int nextId = 1;
-    private final List<Runnable> listeners = new ArrayList<>();
+    private final ChangeBus<Integer> changes = new ChangeBus<>("orders");
 
     public OrderManager(MinecraftServer server) {
         this.server = server;
         Path dir = server.getFile("config/economycraft");
         Path dataDir = dir.resolve("data");
         try { Files.createDirectories(dataDir); } catch (IOException ignored) {}
-        this.file = dataDir.resolve("orders.json");
+        this.jsonFile = dataDir.resolve("orders.json");
+        this.binaryFile = dataDir.resolve("orders.dat");
+        this.binary = EconomyConfig.get().binaryStorage;
+        this.saver = binary
+                ? new SnapshotWriter<>(binaryFile, this::snapshot, this::encodeBinary, server)
+                : new SnapshotWriter<>(jsonFile, this::snapshot, this::encodeJson, server);
         load();
     }
 
@@ -47,14 +65,14 @@ public class OrderManager {
     public void addRequest(OrderRequest r) {
         r.id = nextId++;
         requests.put(r.id, r);
-        notifyListeners();
+        changes.changed(r.id);
         save();
     }
 
     public OrderRequest removeRequest(int id) {
         OrderRequest r = requests.remove(id);
         if (r != null) {
-            notifyListeners();
+            changes.changed(id);
             save();
         }
         return r;
@@ -90,84 +108,136 @@ public class OrderManager {
         return list != null && !list.isEmpty();
     }
 
+    /**
+     * Loads the configured format. If only the other format exists it is read
+     * instead and converted; see {@link SnapshotWriter#load}.
+     */
     public void load() {
-        if (Files.exists(file)) {
-            try {
-                String json = Files.readString(file);
-                JsonObject root = GSON.fromJson(json, JsonObject.class);
-                nextId = root.get("nextId").getAsInt();
-                for (var el : root.getAsJsonArray("requests")) {
-                    OrderRequest r = OrderRequest.load(el.getAsJsonObject(), server.registryAccess());
-                    requests.put(r.id, r);
-                }
-                JsonObject dObj = root.getAsJsonObject("deliveries");
-                for (String key : dObj.keySet()) {
-                    UUID id = UUID.fromString(key);
-                    List<ItemStack> list = new ArrayList<>();
-                    for (var sEl : dObj.getAsJsonArray(key)) {
-                        JsonObject o = sEl.getAsJsonObject();
-                        ItemStack stack = ItemStack.EMPTY;
-                        if (o.has("stack")) {
-                            stack = ItemStack.CODEC.parse(RegistryOps.create(JsonOps.INSTANCE, server.registryAccess()), o.get("stack")).result().orElse(ItemStack.EMPTY);
-                        } else {
-                            String itemId = o.get("item").getAsString();
-                            int count = o.get("count").getAsInt();
-                            IdentifierCompat.Id rl = IdentifierCompat.tryParse(itemId);
-                            if (rl != null) {
-                                java.util.Optional<Item> opt = IdentifierCompat.registryGetOptional(BuiltInRegistries.ITEM, rl);
-
-                                if (opt.isPresent()) {
-                                    Item item = opt.get();
-                                    stack = new ItemStack(item, count);
-                                }
-                            }
-                        }
-                        if (!stack.isEmpty()) list.add(stack);
-                    }
-                    deliveries.put(id, list);
-                }
-            } catch (Exception ignored) {}
-        }
+        Snapshot loaded = binary
+                ? saver.load(this::decodeBinary, jsonFile, this::decodeJson)
+                : saver.load(this::decodeJson, binaryFile, this::decodeBinary);
+        if (loaded == null) return;
+
+        nextId = loaded.nextId();
+        for (OrderRequest r : loaded.requests()) requests.put(r.id, r);
+        deliveries.putAll(loaded.deliveries());
     }
 
+    /** Schedules a debounced background save of the current state. */
     public void save() {
+        saver.markDirty();
+    }
+
+    /** Writes any pending change and stops the save thread. */
+    public void close() {
+        saver.close();
+    }
+
+    private Snapshot snapshot() {
+        List<OrderRequest> copies = new ArrayList<>(requests.size());
+        for (OrderRequest r : requests.values()) copies.add(r.copy());
+        Map<UUID, List<ItemStack>> deliveryCopies = new HashMap<>();
+        for (Map.Entry<UUID, List<ItemStack>> e : deliveries.entrySet()) {
+            List<ItemStack> list = new ArrayList<>(e.getValue().size());
+            for (ItemStack s : e.getValue()) list.add(s.copy());
+            deliveryCopies.put(e.getKey(), list);
+        }
+        return new Snapshot(nextId, copies, deliveryCopies);
+    }
+
+    private byte[] encodeJson(Snapshot snapshot) {
+        RegistryOps<JsonElement> ops = RegistryOps.create(JsonOps.INSTANCE, server.registryAccess());
         JsonObject root = new JsonObject();
-        root.addProperty("nextId", nextId);
+        root.addProperty("nextId", snapshot.nextId());
         JsonArray reqArr = new JsonArray();
-        for (OrderRequest r : requests.values()) {
-            reqArr.add(r.save(server.registryAccess()));
+        for (OrderRequest r : snapshot.requests()) {
+            reqArr.add(r.save(ops));
         }
         root.add("requests", reqArr);
         JsonObject dObj = new JsonObject();
-        for (Map.Entry<UUID, List<ItemStack>> e : deliveries.entrySet()) {
+        for (Map.Entry<UUID, List<ItemStack>> e : snapshot.deliveries().entrySet()) {
             JsonArray arr = new JsonArray();
             for (ItemStack s : e.getValue()) {
                 JsonObject o = new JsonObject();
                 o.addProperty("item", BuiltInRegistries.ITEM.getKey(s.getItem()).toString());
                 o.addProperty("count", s.getCount());
-                JsonElement stackEl = ItemStack.CODEC.encodeStart(RegistryOps.create(JsonOps.INSTANCE, server.registryAccess()), s).result().orElse(new JsonObject());
+                JsonElement stackEl = ItemStack.CODEC.encodeStart(ops, s).result().orElse(new JsonObject());
                 o.add("stack", stackEl);
                 arr.add(o);
             }
             dObj.add(e.getKey().toString(), arr);
         }
         root.add("deliveries", dObj);
-        try {
-            Files.writeString(file, GSON.toJson(root));
-        } catch (IOException ignored) {}
+        return GSON.toJson(root).getBytes(StandardCharsets.UTF_8);
     }
 
-    public void addListener(Runnable run) {
-        listeners.add(run);
+    private Snapshot decodeJson(byte[] data) {
+        JsonObject root = GSON.fromJson(new String(data, StandardCharsets.UTF_8), JsonObject.class);
+        RegistryOps<JsonElement> ops = RegistryOps.create(JsonOps.INSTANCE, server.registryAccess());
+        List<OrderRequest> loaded = new ArrayList<>();
+        Map<UUID, List<ItemStack>> loadedDeliveries = new HashMap<>();
+        for (var el : root.getAsJsonArray("requests")) {
+            OrderRequest r = OrderRequest.load(el.getAsJsonObject(), server.registryAccess());
+            loaded.add(r);
+        }
+        JsonObject dObj = root.getAsJsonObject("deliveries");
+        for (String key : dObj.keySet()) {
+            UUID id = UUID.fromString(key);
+            List<ItemStack> list = new ArrayList<>();
+            for (var sEl : dObj.getAsJsonArray(key)) {
+                JsonObject o = sEl.getAsJsonObject();
+                ItemStack stack = ItemStack.EMPTY;
+                if (o.has("stack")) {
+                    stack = ItemStack.CODEC.parse(ops, o.get("stack")).result().orElse(ItemStack.EMPTY);
+                } else {
+                    String itemId = o.get("item").getAsString();
+                    int count = o.get("count").getAsInt();
+                    IdentifierCompat.Id rl = IdentifierCompat.tryParse(itemId);
+                    if (rl != null) {
+                        java.util.Optional<Item> opt = IdentifierCompat.registryGetOptional(BuiltInRegistries.ITEM, rl);
+
+                        if (opt.isPresent()) {
+                            Item item = opt.get();
+                            stack = new ItemStack(item, count);
+                        }
+                    }
+                }
+                if (!stack.isEmpty()) list.add(stack);
+            }
+            loadedDeliveries.put(id, list);
+        }
+        return new Snapshot(root.get("nextId").getAsInt(), loaded, loadedDeliveries);
     }
 
-    public void removeListener(Runnable run) {
-        listeners.remove(run);
+    private byte[] encodeBinary(Snapshot snapshot) throws IOException {
+        RegistryOps<Tag> ops = RegistryOps.create(NbtOps.INSTANCE, server.registryAccess());
+        return BinaryFormat.write(BINARY_VERSION, out -> {
+            out.writeInt(snapshot.nextId());
+            out.writeInt(snapshot.requests().size());
+            for (OrderRequest r : snapshot.requests()) r.write(out, ops);
+            BinaryFormat.writeDeliveries(out, snapshot.deliveries(), ops);
+        });
     }
 
-    private void notifyListeners() {
-        for (Runnable r : new ArrayList<>(listeners)) {
-            r.run();
-        }
+    private Snapshot decodeBinary(byte[] data) throws IOException {
+        RegistryOps<Tag> ops = RegistryOps.create(NbtOps.INSTANCE, server.registryAccess());
+        DataInputStream in = BinaryFormat.open(data, BINARY_VERSION);
+        int nextId = in.readInt();
+        int count = in.readInt();
+        List<OrderRequest> loaded = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) loaded.add(OrderRequest.read(in, ops));
+        return new Snapshot(nextId, loaded, BinaryFormat.readDeliveries(in, ops));
+    }
+
+    private record Snapshot(int nextId, List<OrderRequest> requests, Map<UUID, List<ItemStack>> deliveries) {}
+
+    /** Subscribes to added and removed request ids, delivered at most once per tick. */
+    public ChangeBus.Subscription subscribe(Consumer<ChangeBus.Change<Integer>> listener) {
+        return changes.subscribe(listener);
+    }
+
+    /** Delivers this tick's changes; called from {@link com.reazip.economycraft.EconomyManager#tick()}. */
+    public void flushChanges() {
+        changes.flush();
     }
 }
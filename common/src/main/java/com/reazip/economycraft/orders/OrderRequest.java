@@ -6,10 +6,14 @@ import com.mojang.serialization.JsonOps;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.RegistryOps;
+import com.reazip.economycraft.storage.BinaryFormat;
 import com.reazip.economycraft.util.IdentifierCompat;
+import net.minecraft.nbt.Tag;
 import net.minecraft.world.item.ItemStack;
 
-
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.UUID;
 
 public class OrderRequest {
@@ -19,14 +23,29 @@ public class OrderRequest {
     public int amount;
     public long price;
 
+    /** Returns a copy that is safe to serialize off the server thread. */
+    public OrderRequest copy() {
+        OrderRequest c = new OrderRequest();
+        c.id = id;
+        c.requester = requester;
+        c.item = item.copy();
+        c.amount = amount;
+        c.price = price;
+        return c;
+    }
+
     public JsonObject save(HolderLookup.Provider provider) {
+        return save(RegistryOps.create(JsonOps.INSTANCE, provider));
+    }
+
+    public JsonObject save(RegistryOps<JsonElement> ops) {
         JsonObject obj = new JsonObject();
         obj.addProperty("id", id);
         if (requester != null) obj.addProperty("requester", requester.toString());
         obj.addProperty("price", price);
         obj.addProperty("item", BuiltInRegistries.ITEM.getKey(item.getItem()).toString());
         obj.addProperty("amount", amount);
-        JsonElement stackEl = ItemStack.CODEC.encodeStart(RegistryOps.create(JsonOps.INSTANCE, provider), item).result().orElse(new JsonObject());
+        JsonElement stackEl = ItemStack.CODEC.encodeStart(ops, item).result().orElse(new JsonObject());
         obj.add("stack", stackEl);
         return obj;
     }
@@ -50,4 +69,22 @@ public class OrderRequest {
         }
         return r;
     }
+
+    public void write(DataOutput out, RegistryOps<Tag> ops) throws IOException {
+        out.writeInt(id);
+        BinaryFormat.writeUuid(out, requester);
+        out.writeLong(price);
+        out.writeInt(amount);
+        BinaryFormat.writeStack(out, item, ops);
+    }
+
+    public static OrderRequest read(DataInput in, RegistryOps<Tag> ops) throws IOException {
+        OrderRequest r = new OrderRequest();
+        r.id = in.readInt();
+        r.requester = BinaryFormat.readUuid(in);
+        r.price = in.readLong();
+        r.amount = in.readInt();
+        r.item = BinaryFormat.readStack(in, ops);
+        return r;
+    }
 }
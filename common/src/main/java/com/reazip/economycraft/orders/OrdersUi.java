@@ -3,8 +3,12 @@ package com.reazip.economycraft.orders;
 import com.reazip.economycraft.EconomyCraft;
 import com.reazip.economycraft.EconomyConfig;
 import com.reazip.economycraft.EconomyManager;
+import com.reazip.economycraft.util.ChangeBus;
 import com.reazip.economycraft.util.ChatCompat;
 import com.reazip.economycraft.util.IdentityCompat;
+import com.reazip.economycraft.util.LoreText;
+import com.reazip.economycraft.util.MenuFrame;
+import com.reazip.economycraft.util.MoneyFormat;
 import com.reazip.economycraft.util.ProfileComponentCompat;
 import net.minecraft.ChatFormatting;
 import net.minecraft.network.chat.ClickEvent;
@@ -57,9 +61,9 @@ public final class OrdersUi {
     }
 
     private static Component createRewardLore(long reward, long tax) {
-        StringBuilder value = new StringBuilder(EconomyCraft.formatMoney(reward));
+        StringBuilder value = MoneyFormat.append(new StringBuilder(32), reward);
         if (tax > 0) {
-            value.append(" (-").append(EconomyCraft.formatMoney(tax)).append(" tax)");
+            MoneyFormat.append(value.append(" (-"), tax).append(" tax)");
         }
         return labeledValue("Reward", value.toString(), LABEL_PRIMARY_COLOR);
     }
@@ -67,28 +71,22 @@ public final class OrdersUi {
     private static ItemStack createBalanceItem(EconomyManager eco, UUID playerId, @Nullable ServerPlayer player, @Nullable String name) {
         ItemStack head = new ItemStack(Items.PLAYER_HEAD);
         var profile = player != null
-                ? ProfileComponentCompat.tryResolvedOrUnresolved(player.getGameProfile())
-                : ProfileComponentCompat.tryUnresolved(name != null && !name.isBlank() ? name : playerId.toString());
+                ? ProfileComponentCompat.head(player.getGameProfile())
+                : ProfileComponentCompat.head(playerId, name);
         profile.ifPresent(resolvable -> head.set(DataComponents.PROFILE, resolvable));
-        long balance = eco.getBalance(playerId, true);
+        long balance = eco.getBalance(playerId);
         String displayName = name != null ? name : playerId.toString();
-        head.set(DataComponents.CUSTOM_NAME, Component.literal(displayName).withStyle(s -> s.withItalic(false).withColor(BALANCE_NAME_COLOR)));
+        head.set(DataComponents.CUSTOM_NAME, LoreText.literal(displayName, BALANCE_NAME_COLOR));
         head.set(DataComponents.LORE, new ItemLore(List.of(balanceLore(balance))));
         return head;
     }
 
     private static Component balanceLore(long balance) {
-        return Component.literal("Balance: ")
-                .withStyle(s -> s.withItalic(false).withColor(BALANCE_LABEL_COLOR))
-                .append(Component.literal(EconomyCraft.formatMoney(balance))
-                        .withStyle(s -> s.withItalic(false).withColor(BALANCE_VALUE_COLOR)));
+        return LoreText.labeled("Balance", BALANCE_LABEL_COLOR, EconomyCraft.formatMoney(balance), BALANCE_VALUE_COLOR);
     }
 
     private static Component labeledValue(String label, String value, ChatFormatting labelColor) {
-        return Component.literal(label + ": ")
-                .withStyle(s -> s.withItalic(false).withColor(labelColor))
-                .append(Component.literal(value)
-                        .withStyle(s -> s.withItalic(false).withColor(VALUE_COLOR)));
+        return LoreText.labeled(label, labelColor, value, VALUE_COLOR);
     }
 
     public static void openClaims(ServerPlayer player, EconomyManager eco) {
@@ -109,9 +107,10 @@ public final class OrdersUi {
         private final ServerPlayer viewer;
         private List<OrderRequest> requests = new ArrayList<>();
         private final SimpleContainer container = new SimpleContainer(54);
+        private final MenuFrame frame = new MenuFrame(container);
         private int page;
         private final int navRowStart = 45;
-        private final Runnable listener = this::updatePage;
+        private final ChangeBus.Subscription subscription;
 
         RequestMenu(int id, Inventory inv, OrderManager orders, EconomyManager eco, ServerPlayer viewer) {
             super(MenuType.GENERIC_9x6, id);
@@ -119,7 +118,7 @@ public final class OrdersUi {
             this.eco = eco;
             this.viewer = viewer;
             updatePage();
-            orders.addListener(listener);
+            subscription = orders.subscribe(change -> updatePage());
             for (int i = 0; i < 54; i++) {
                 int r = i / 9;
                 int c = i % 9;
@@ -141,7 +140,6 @@ public final class OrdersUi {
 
         private void updatePage() {
             requests = new ArrayList<>(orders.getRequests());
-            container.clearContent();
             int start = page * 45;
             int totalPages = (int) Math.ceil(requests.size() / 45.0);
 
@@ -170,28 +168,29 @@ public final class OrdersUi {
                                 labeledValue("Requester", reqName, LABEL_SECONDARY_COLOR)
                         )));
                 display.setCount(1);
-                container.setItem(i, display);
+                frame.set(i, display);
             }
 
             if (page > 0) {
                 ItemStack prev = new ItemStack(Items.ARROW);
                 prev.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME, Component.literal("Previous page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 2, prev);
+                frame.set(navRowStart + 2, prev);
             }
 
             if (start + 45 < requests.size()) {
                 ItemStack next = new ItemStack(Items.ARROW);
                 next.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME, Component.literal("Next page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 6, next);
+                frame.set(navRowStart + 6, next);
             }
 
             ItemStack balance = createBalanceItem(eco, viewer.getUUID(), viewer, IdentityCompat.of(viewer).name());
-            container.setItem(navRowStart, balance);
+            frame.set(navRowStart, balance);
 
             ItemStack paper = new ItemStack(Items.PAPER);
             paper.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME,
                     Component.literal("Page " + (page + 1) + "/" + Math.max(1, totalPages)).withStyle(s -> s.withItalic(false)));
-            container.setItem(navRowStart + 4, paper);
+            frame.set(navRowStart + 4, paper);
+            frame.commit();
         }
 
         @Override
@@ -266,7 +265,7 @@ public final class OrdersUi {
         @Override
         public void removed(Player player) {
             super.removed(player);
-            orders.removeListener(listener);
+            subscription.close();
         }
 
         @Override public ItemStack quickMoveStack(Player player, int idx) { return ItemStack.EMPTY; }
@@ -343,7 +342,7 @@ public final class OrdersUi {
                         serverPlayer.sendSystemMessage(Component.literal("Not enough items").withStyle(ChatFormatting.RED));
                     } else {
                         long cost = current.price;
-                        long bal = parent.eco.getBalance(current.requester, true);
+                        long bal = parent.eco.getBalance(current.requester);
                         if (bal < cost) {
                             serverPlayer.sendSystemMessage(Component.literal("Requester can't pay").withStyle(ChatFormatting.RED));
                         } else {
@@ -495,6 +494,7 @@ public final class OrdersUi {
         private final List<ItemStack> orderItems;
         private final List<ItemStack> shopItems;
         private final SimpleContainer container = new SimpleContainer(54);
+        private final MenuFrame frame = new MenuFrame(container);
         private final List<ItemStack> items = new ArrayList<>();
         private int page;
         private final int navRowStart = 45;
@@ -530,23 +530,22 @@ public final class OrdersUi {
             items.clear();
             items.addAll(orderItems);
             items.addAll(shopItems);
-            container.clearContent();
             int start = page * 45;
             int totalPages = (int)Math.ceil(items.size() / 45.0);
             for (int i = 0; i < 45; i++) {
                 int index = start + i;
                 if (index >= items.size()) break;
-                container.setItem(i, items.get(index));
+                frame.set(i, items.get(index));
             }
             if (page > 0) {
                 ItemStack prev = new ItemStack(Items.ARROW);
                 prev.set(DataComponents.CUSTOM_NAME, Component.literal("Previous page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 2, prev);
+                frame.set(navRowStart + 2, prev);
             }
             if (start + 45 < items.size()) {
                 ItemStack next = new ItemStack(Items.ARROW);
                 next.set(DataComponents.CUSTOM_NAME, Component.literal("Next page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 6, next);
+                frame.set(navRowStart + 6, next);
             }
             String name = null;
             ServerPlayer viewer = getViewer();
@@ -556,10 +555,11 @@ public final class OrdersUi {
                 name = eco.getBestName(owner);
             }
             ItemStack balance = createBalanceItem(eco, owner, viewer, name);
-            container.setItem(navRowStart, balance);
+            frame.set(navRowStart, balance);
             ItemStack paper = new ItemStack(Items.PAPER);
             paper.set(DataComponents.CUSTOM_NAME, Component.literal("Page " + (page + 1) + "/" + Math.max(1, totalPages)).withStyle(s -> s.withItalic(false)));
-            container.setItem(navRowStart + 4, paper);
+            frame.set(navRowStart + 4, paper);
+            frame.commit();
         }
 
         private ServerPlayer getViewer() {
@@ -6,6 +6,8 @@ import com.reazip.economycraft.EconomyManager;
 import com.reazip.economycraft.PriceRegistry;
 import com.reazip.economycraft.util.ChatCompat;
 import com.reazip.economycraft.util.IdentityCompat;
+import com.reazip.economycraft.util.LoreText;
+import com.reazip.economycraft.util.MenuFrame;
 import com.reazip.economycraft.util.ProfileComponentCompat;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.Holder;
@@ -37,6 +39,7 @@ import net.minecraft.core.registries.Registries;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -56,6 +59,10 @@ public final class ServerShopUi {
     private static final ChatFormatting BALANCE_LABEL_COLOR = ChatFormatting.GOLD;
     private static final ChatFormatting BALANCE_VALUE_COLOR = ChatFormatting.DARK_PURPLE;
 
+    // Rendered item pages keyed by "category#itemsPerPage#page"; server thread only.
+    private record PageCache(PriceRegistry prices, int generation, Map<String, List<ItemStack>> pages) {}
+    private static PageCache pageCache;
+
     private ServerShopUi() {}
 
     public static void open(ServerPlayer player, EconomyManager eco) {
@@ -170,6 +177,7 @@ public final class ServerShopUi {
         private final ServerPlayer viewer;
         private List<String> categories = new ArrayList<>();
         private final SimpleContainer container;
+        private final MenuFrame frame;
         private final int itemsPerPage = 45;
         private final int navRowStart = 45;
         private final int[] slotToIndex = new int[54];
@@ -183,6 +191,7 @@ public final class ServerShopUi {
 
             refreshCategories();
             this.container = new SimpleContainer(54);
+            this.frame = new MenuFrame(container);
             setupSlots(inv);
             updatePage();
         }
@@ -215,7 +224,6 @@ public final class ServerShopUi {
         }
 
         private void updatePage() {
-            container.clearContent();
             java.util.Arrays.fill(slotToIndex, -1);
             int start = page * itemsPerPage;
             int totalPages = (int) Math.ceil(categories.size() / (double) itemsPerPage);
@@ -231,30 +239,31 @@ public final class ServerShopUi {
                 icon.set(DataComponents.CUSTOM_NAME, Component.literal(formatCategoryTitle(cat)).withStyle(s -> s.withItalic(false).withColor(getCategoryColor(cat)).withBold(true)));
                 icon.set(DataComponents.LORE, new ItemLore(List.of(Component.literal("Click to view items").withStyle(s -> s.withItalic(false)))));
                 int slot = STAR_SLOT_ORDER.get(i);
-                container.setItem(slot, icon);
+                frame.set(slot, icon);
                 slotToIndex[slot] = idx;
             }
 
-            fillEmptyWithPanes(container, itemsPerPage);
+            fillEmptyWithPanes(frame, itemsPerPage);
 
             if (page > 0) {
                 ItemStack prev = new ItemStack(Items.ARROW);
                 prev.set(DataComponents.CUSTOM_NAME, Component.literal("Previous page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 3, prev);
+                frame.set(navRowStart + 3, prev);
             }
 
             if (start + itemsPerPage < categories.size()) {
                 ItemStack next = new ItemStack(Items.ARROW);
                 next.set(DataComponents.CUSTOM_NAME, Component.literal("Next page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 5, next);
+                frame.set(navRowStart + 5, next);
             }
 
             ItemStack balance = createBalanceItem(viewer);
-            container.setItem(navRowStart, balance);
+            frame.set(navRowStart, balance);
 
             ItemStack paper = new ItemStack(Items.PAPER);
             paper.set(DataComponents.CUSTOM_NAME, Component.literal("Page " + (page + 1) + "/" + Math.max(1, totalPages)).withStyle(s -> s.withItalic(false)));
-            container.setItem(navRowStart + 4, paper);
+            frame.set(navRowStart + 4, paper);
+            frame.commit();
         }
 
         @Override
@@ -290,6 +299,7 @@ public final class ServerShopUi {
         private final String topCategory;
         private List<String> subcategories = new ArrayList<>();
         private final SimpleContainer container;
+        private final MenuFrame frame;
         private final int rows;
         private final int itemsPerPage;
         private final int navRowStart;
@@ -306,6 +316,7 @@ public final class ServerShopUi {
             this.itemsPerPage = (rows - 1) * 9;
             this.navRowStart = itemsPerPage;
             this.container = new SimpleContainer(rows * 9);
+            this.frame = new MenuFrame(container);
             setupSlots(inv);
             updatePage();
         }
@@ -340,7 +351,6 @@ public final class ServerShopUi {
         }
 
         private void updatePage() {
-            container.clearContent();
             int start = page * itemsPerPage;
             int totalPages = (int) Math.ceil(subcategories.size() / (double) itemsPerPage);
 
@@ -355,31 +365,32 @@ public final class ServerShopUi {
 
                 icon.set(DataComponents.CUSTOM_NAME, Component.literal(formatCategoryTitle(sub)).withStyle(s -> s.withItalic(false).withColor(ChatFormatting.WHITE).withBold(true)));
                 icon.set(DataComponents.LORE, new ItemLore(List.of(Component.literal("Click to view items").withStyle(s -> s.withItalic(false)))));
-                container.setItem(i, icon);
+                frame.set(i, icon);
             }
 
             if (page > 0) {
                 ItemStack prev = new ItemStack(Items.ARROW);
                 prev.set(DataComponents.CUSTOM_NAME, Component.literal("Previous page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 3, prev);
+                frame.set(navRowStart + 3, prev);
             }
 
             if (start + itemsPerPage < subcategories.size()) {
                 ItemStack next = new ItemStack(Items.ARROW);
                 next.set(DataComponents.CUSTOM_NAME, Component.literal("Next page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 5, next);
+                frame.set(navRowStart + 5, next);
             }
 
             ItemStack back = new ItemStack(Items.BARRIER);
             back.set(DataComponents.CUSTOM_NAME, Component.literal("Back").withStyle(s -> s.withItalic(false).withColor(ChatFormatting.DARK_RED).withBold(true)));
-            container.setItem(navRowStart + 8, back);
+            frame.set(navRowStart + 8, back);
 
             ItemStack balance = createBalanceItem(viewer);
-            container.setItem(navRowStart, balance);
+            frame.set(navRowStart, balance);
 
             ItemStack paper = new ItemStack(Items.PAPER);
             paper.set(DataComponents.CUSTOM_NAME, Component.literal("Page " + (page + 1) + "/" + Math.max(1, totalPages)).withStyle(s -> s.withItalic(false)));
-            container.setItem(navRowStart + 4, paper);
+            frame.set(navRowStart + 4, paper);
+            frame.commit();
         }
 
         @Override
@@ -410,7 +421,9 @@ public final class ServerShopUi {
         private final ServerPlayer viewer;
         private final String category;
         private List<PriceRegistry.PriceEntry> entries = new ArrayList<>();
+        private int generation;
         private final SimpleContainer container;
+        private final MenuFrame frame;
         private final int rows;
         private final int itemsPerPage;
         private final int navRowStart;
@@ -428,11 +441,13 @@ public final class ServerShopUi {
             this.itemsPerPage = (rows - 1) * 9;
             this.navRowStart = itemsPerPage;
             this.container = new SimpleContainer(rows * 9);
+            this.frame = new MenuFrame(container);
             setupSlots(inv);
             updatePage();
         }
 
         private void refreshEntries() {
+            generation = prices.generation();
             entries = new ArrayList<>(prices.buyableByCategory(category));
         }
 
@@ -457,59 +472,42 @@ public final class ServerShopUi {
         }
 
         private void updatePage() {
-            container.clearContent();
+            if (generation != prices.generation()) {
+                refreshEntries();
+                page = Math.max(0, Math.min(page, (entries.size() - 1) / itemsPerPage));
+            }
             int start = page * itemsPerPage;
             int totalPages = (int) Math.ceil(entries.size() / (double) itemsPerPage);
 
-            for (int i = 0; i < itemsPerPage; i++) {
-                int idx = start + i;
-                if (idx >= entries.size()) break;
-
-                PriceRegistry.PriceEntry entry = entries.get(idx);
-                ItemStack display = createDisplayStack(entry, viewer);
-                if (display.isEmpty()) continue;
-
-                int stackSize = Math.max(1, entry.stack());
-                List<Component> lore = new ArrayList<>();
-                lore.add(labeledValue("Buy", EconomyCraft.formatMoney(entry.unitBuy()), LABEL_PRIMARY_COLOR));
-
-                Long stackPrice = safeMultiply(entry.unitBuy(), stackSize);
-                if (stackSize > 1 && stackPrice != null) {
-                    lore.add(labeledValue("Stack (" + stackSize + ")", EconomyCraft.formatMoney(stackPrice), LABEL_PRIMARY_COLOR));
-                }
-
-                lore.add(labeledValue("Left click", "Buy 1", LABEL_SECONDARY_COLOR));
-                if (stackSize > 1) {
-                    lore.add(labeledValue("Shift-click", "Buy " + stackSize, LABEL_SECONDARY_COLOR));
-                }
-
-                display.set(DataComponents.LORE, new ItemLore(lore));
-                display.setCount(1);
-                container.setItem(i, display);
+            List<ItemStack> rendered = renderedPage(prices, category, entries, page, itemsPerPage, viewer);
+            for (int i = 0; i < rendered.size(); i++) {
+                ItemStack display = rendered.get(i);
+                if (!display.isEmpty()) frame.set(i, display.copy());
             }
 
             if (page > 0) {
                 ItemStack prev = new ItemStack(Items.ARROW);
                 prev.set(DataComponents.CUSTOM_NAME, Component.literal("Previous page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 3, prev);
+                frame.set(navRowStart + 3, prev);
             }
 
             if (start + itemsPerPage < entries.size()) {
                 ItemStack next = new ItemStack(Items.ARROW);
                 next.set(DataComponents.CUSTOM_NAME, Component.literal("Next page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 5, next);
+                frame.set(navRowStart + 5, next);
             }
 
             ItemStack back = new ItemStack(Items.BARRIER);
             back.set(DataComponents.CUSTOM_NAME, Component.literal("Back").withStyle(s -> s.withItalic(false).withColor(ChatFormatting.DARK_RED).withBold(true)));
-            container.setItem(navRowStart + 8, back);
+            frame.set(navRowStart + 8, back);
 
             ItemStack balance = createBalanceItem(viewer);
-            container.setItem(navRowStart, balance);
+            frame.set(navRowStart, balance);
 
             ItemStack paper = new ItemStack(Items.PAPER);
             paper.set(DataComponents.CUSTOM_NAME, Component.literal("Page " + (page + 1) + "/" + Math.max(1, totalPages)).withStyle(s -> s.withItalic(false)));
-            container.setItem(navRowStart + 4, paper);
+            frame.set(navRowStart + 4, paper);
+            frame.commit();
         }
 
         @Override
@@ -561,7 +559,7 @@ public final class ServerShopUi {
                 return;
             }
 
-            long balance = eco.getBalance(viewer.getUUID(), true);
+            long balance = eco.getBalance(viewer.getUUID());
             if (balance < total) {
                 viewer.sendSystemMessage(Component.literal("Not enough balance.")
                         .withStyle(ChatFormatting.RED));
@@ -586,7 +584,8 @@ public final class ServerShopUi {
                 sendStoredMessage(viewer);
             }
 
-            updatePage();
+            // Only the balance changed; the rest of the page is shared and unchanged.
+            container.setItem(navRowStart, createBalanceItem(viewer));
         }
 
         private boolean giveToPlayer(ItemStack base, int amount) {
@@ -621,6 +620,55 @@ public final class ServerShopUi {
         @Override public ItemStack quickMoveStack(Player player, int index) { return ItemStack.EMPTY; }
     }
 
+    /**
+     * Display stacks for one item page of {@code category}, shared by every
+     * viewer until the next {@link PriceRegistry#reload()}. Unrenderable
+     * entries are {@link ItemStack#EMPTY}. Callers must copy before use.
+     */
+    private static List<ItemStack> renderedPage(PriceRegistry prices, String category,
+                                                List<PriceRegistry.PriceEntry> entries, int page,
+                                                int itemsPerPage, ServerPlayer viewer) {
+        PageCache cache = pageCache;
+        if (cache == null || cache.prices() != prices || cache.generation() != prices.generation()) {
+            cache = new PageCache(prices, prices.generation(), new HashMap<>());
+            pageCache = cache;
+        }
+        return cache.pages().computeIfAbsent(category + '#' + itemsPerPage + '#' + page,
+                k -> renderPage(entries, page * itemsPerPage, itemsPerPage, viewer));
+    }
+
+    private static List<ItemStack> renderPage(List<PriceRegistry.PriceEntry> entries, int start, int itemsPerPage, ServerPlayer viewer) {
+        int end = Math.min(entries.size(), start + itemsPerPage);
+        List<ItemStack> out = new ArrayList<>(Math.max(0, end - start));
+        for (int idx = start; idx < end; idx++) {
+            PriceRegistry.PriceEntry entry = entries.get(idx);
+            ItemStack display = createDisplayStack(entry, viewer);
+            if (display.isEmpty()) {
+                out.add(ItemStack.EMPTY);
+                continue;
+            }
+
+            int stackSize = Math.max(1, entry.stack());
+            List<Component> lore = new ArrayList<>();
+            lore.add(labeledValue("Buy", EconomyCraft.formatMoney(entry.unitBuy()), LABEL_PRIMARY_COLOR));
+
+            Long stackPrice = safeMultiply(entry.unitBuy(), stackSize);
+            if (stackSize > 1 && stackPrice != null) {
+                lore.add(labeledValue("Stack (" + stackSize + ")", EconomyCraft.formatMoney(stackPrice), LABEL_PRIMARY_COLOR));
+            }
+
+            lore.add(labeledValue("Left click", "Buy 1", LABEL_SECONDARY_COLOR));
+            if (stackSize > 1) {
+                lore.add(labeledValue("Shift-click", "Buy " + stackSize, LABEL_SECONDARY_COLOR));
+            }
+
+            display.set(DataComponents.LORE, new ItemLore(lore));
+            display.setCount(1);
+            out.add(display);
+        }
+        return Collections.unmodifiableList(out);
+    }
+
     private static ItemStack createCategoryIcon(String displayKey, String categoryKey, PriceRegistry prices, ServerPlayer viewer) {
         IdentifierCompat.Id iconId = CATEGORY_ICONS.get(normalizeCategoryKey(displayKey));
         if (iconId == null && categoryKey != null) {
@@ -759,22 +807,15 @@ public final class ServerShopUi {
     }
 
     private static boolean hasItems(PriceRegistry prices, String categoryKey) {
-        if (categoryKey == null || categoryKey.isBlank()) return false;
-        if (!prices.buyableByCategory(categoryKey).isEmpty()) return true;
-        if (!categoryKey.contains(".")) {
-            for (String sub : prices.buySubcategories(categoryKey)) {
-                if (!prices.buyableByCategory(categoryKey + "." + sub).isEmpty()) return true;
-            }
-        }
-        return false;
+        return prices.hasBuyableItems(categoryKey);
     }
 
-    private static void fillEmptyWithPanes(SimpleContainer container, int limit) {
+    private static void fillEmptyWithPanes(MenuFrame frame, int limit) {
         ItemStack filler = new ItemStack(Items.GRAY_STAINED_GLASS_PANE);
         filler.set(DataComponents.CUSTOM_NAME, Component.literal(" "));
-        for (int i = 0; i < limit && i < container.getContainerSize(); i++) {
-            if (container.getItem(i).isEmpty()) {
-                container.setItem(i, filler.copy());
+        for (int i = 0; i < limit && i < frame.size(); i++) {
+            if (frame.get(i).isEmpty()) {
+                frame.set(i, filler.copy());
             }
         }
     }
@@ -796,26 +837,20 @@ public final class ServerShopUi {
     }
 
     private static Component labeledValue(String label, String value, ChatFormatting labelColor) {
-        return Component.literal(label + ": ")
-                .withStyle(s -> s.withItalic(false).withColor(labelColor))
-                .append(Component.literal(value)
-                        .withStyle(s -> s.withItalic(false).withColor(VALUE_COLOR)));
+        return LoreText.labeled(label, labelColor, value, VALUE_COLOR);
     }
 
     private static Component balanceLore(long balance) {
-        return Component.literal("Balance: ")
-                .withStyle(s -> s.withItalic(false).withColor(BALANCE_LABEL_COLOR))
-                .append(Component.literal(EconomyCraft.formatMoney(balance))
-                        .withStyle(s -> s.withItalic(false).withColor(BALANCE_VALUE_COLOR)));
+        return LoreText.labeled("Balance", BALANCE_LABEL_COLOR, EconomyCraft.formatMoney(balance), BALANCE_VALUE_COLOR);
     }
 
     private static ItemStack createBalanceItem(ServerPlayer player) {
         ItemStack head = new ItemStack(Items.PLAYER_HEAD);
-        ProfileComponentCompat.tryResolvedOrUnresolved(player.getGameProfile()).ifPresent(resolvable ->
+        ProfileComponentCompat.head(player.getGameProfile()).ifPresent(resolvable ->
                 head.set(DataComponents.PROFILE, resolvable));
-        long balance = EconomyCraft.getManager(player.level().getServer()).getBalance(player.getUUID(), true);
+        long balance = EconomyCraft.getManager(player.level().getServer()).getBalance(player.getUUID());
         String name = IdentityCompat.of(player).name();
-        head.set(DataComponents.CUSTOM_NAME, Component.literal(name).withStyle(s -> s.withItalic(false).withColor(BALANCE_NAME_COLOR)));
+        head.set(DataComponents.CUSTOM_NAME, LoreText.literal(name, BALANCE_NAME_COLOR));
         head.set(DataComponents.LORE, new ItemLore(List.of(balanceLore(balance))));
         return head;
     }
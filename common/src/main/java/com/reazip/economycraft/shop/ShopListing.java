@@ -6,11 +6,15 @@ import com.mojang.serialization.JsonOps;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.RegistryOps;
+import com.reazip.economycraft.storage.BinaryFormat;
 import com.reazip.economycraft.util.IdentifierCompat;
+import net.minecraft.nbt.Tag;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 
-
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.UUID;
 
 /** Listing for one item in the shop. */
@@ -20,14 +24,28 @@ public class ShopListing {
     public ItemStack item;
     public long price;
 
+    /** Returns a copy that is safe to serialize off the server thread. */
+    public ShopListing copy() {
+        ShopListing c = new ShopListing();
+        c.id = id;
+        c.seller = seller;
+        c.item = item.copy();
+        c.price = price;
+        return c;
+    }
+
     public JsonObject save(HolderLookup.Provider provider) {
+        return save(RegistryOps.create(JsonOps.INSTANCE, provider));
+    }
+
+    public JsonObject save(RegistryOps<JsonElement> ops) {
         JsonObject obj = new JsonObject();
         obj.addProperty("id", id);
         if (seller != null) obj.addProperty("seller", seller.toString());
         obj.addProperty("price", price);
         obj.addProperty("item", BuiltInRegistries.ITEM.getKey(item.getItem()).toString());
         obj.addProperty("count", item.getCount());
-        JsonElement stackEl = ItemStack.CODEC.encodeStart(RegistryOps.create(JsonOps.INSTANCE, provider), item).result().orElse(new JsonObject());
+        JsonElement stackEl = ItemStack.CODEC.encodeStart(ops, item).result().orElse(new JsonObject());
         obj.add("stack", stackEl);
         return obj;
     }
@@ -55,4 +73,20 @@ public class ShopListing {
         }
         return l;
     }
+
+    public void write(DataOutput out, RegistryOps<Tag> ops) throws IOException {
+        out.writeInt(id);
+        BinaryFormat.writeUuid(out, seller);
+        out.writeLong(price);
+        BinaryFormat.writeStack(out, item, ops);
+    }
+
+    public static ShopListing read(DataInput in, RegistryOps<Tag> ops) throws IOException {
+        ShopListing l = new ShopListing();
+        l.id = in.readInt();
+        l.seller = BinaryFormat.readUuid(in);
+        l.price = in.readLong();
+        l.item = BinaryFormat.readStack(in, ops);
+        return l;
+    }
 }
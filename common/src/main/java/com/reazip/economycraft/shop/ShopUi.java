@@ -3,8 +3,12 @@ package com.reazip.economycraft.shop;
 import com.reazip.economycraft.EconomyCraft;
 import com.reazip.economycraft.EconomyConfig;
 import com.reazip.economycraft.EconomyManager;
+import com.reazip.economycraft.util.ChangeBus;
 import com.reazip.economycraft.util.ChatCompat;
 import com.reazip.economycraft.util.IdentityCompat;
+import com.reazip.economycraft.util.LoreText;
+import com.reazip.economycraft.util.MenuFrame;
+import com.reazip.economycraft.util.MoneyFormat;
 import com.reazip.economycraft.util.ProfileComponentCompat;
 import net.minecraft.ChatFormatting;
 import net.minecraft.network.chat.ClickEvent;
@@ -93,9 +97,9 @@ public final class ShopUi {
     }
 
     private static Component createPriceLore(long price, long tax) {
-        StringBuilder value = new StringBuilder(EconomyCraft.formatMoney(price));
+        StringBuilder value = MoneyFormat.append(new StringBuilder(32), price);
         if (tax > 0) {
-            value.append(" (+").append(EconomyCraft.formatMoney(tax)).append(" tax)");
+            MoneyFormat.append(value.append(" (+"), tax).append(" tax)");
         }
         return labeledValue("Price", value.toString(), LABEL_PRIMARY_COLOR);
     }
@@ -103,28 +107,22 @@ public final class ShopUi {
     private static ItemStack createBalanceItem(ServerPlayer player) {
         ItemStack head = new ItemStack(Items.PLAYER_HEAD);
         GameProfile profile = player.getGameProfile();
-        ProfileComponentCompat.tryResolvedOrUnresolved(profile).ifPresent(resolvable ->
+        ProfileComponentCompat.head(profile).ifPresent(resolvable ->
                 head.set(net.minecraft.core.component.DataComponents.PROFILE, resolvable));
-        long balance = EconomyCraft.getManager(player.level().getServer()).getBalance(player.getUUID(), true);
+        long balance = EconomyCraft.getManager(player.level().getServer()).getBalance(player.getUUID());
         head.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME,
-                Component.literal(IdentityCompat.of(player).name()).withStyle(s -> s.withItalic(false).withColor(BALANCE_NAME_COLOR)));
+                LoreText.literal(IdentityCompat.of(player).name(), BALANCE_NAME_COLOR));
         head.set(net.minecraft.core.component.DataComponents.LORE,
                 new ItemLore(List.of(balanceLore(balance))));
         return head;
     }
 
     private static Component balanceLore(long balance) {
-        return Component.literal("Balance: ")
-                .withStyle(s -> s.withItalic(false).withColor(BALANCE_LABEL_COLOR))
-                .append(Component.literal(EconomyCraft.formatMoney(balance))
-                        .withStyle(s -> s.withItalic(false).withColor(BALANCE_VALUE_COLOR)));
+        return LoreText.labeled("Balance", BALANCE_LABEL_COLOR, EconomyCraft.formatMoney(balance), BALANCE_VALUE_COLOR);
     }
 
     private static Component labeledValue(String label, String value, ChatFormatting labelColor) {
-        return Component.literal(label + ": ")
-                .withStyle(s -> s.withItalic(false).withColor(labelColor))
-                .append(Component.literal(value)
-                        .withStyle(s -> s.withItalic(false).withColor(VALUE_COLOR)));
+        return LoreText.labeled(label, labelColor, value, VALUE_COLOR);
     }
 
     private static class ShopMenu extends AbstractContainerMenu {
@@ -132,16 +130,17 @@ public final class ShopUi {
         private final ServerPlayer viewer;
         private List<ShopListing> listings = new ArrayList<>();
         private final SimpleContainer container = new SimpleContainer(54);
+        private final MenuFrame frame = new MenuFrame(container);
         private int page;
         private final int navRowStart = 45;
-        private final Runnable listener = this::updatePage;
+        private final ChangeBus.Subscription subscription;
 
         ShopMenu(int id, Inventory inv, ShopManager shop, ServerPlayer viewer) {
             super(MenuType.GENERIC_9x6, id);
             this.shop = shop;
             this.viewer = viewer;
             updatePage();
-            shop.addListener(listener);
+            subscription = shop.subscribe(change -> updatePage());
             for (int i = 0; i < 54; i++) {
                 int r = i / 9;
                 int c = i % 9;
@@ -163,7 +162,6 @@ public final class ShopUi {
 
         private void updatePage() {
             listings = new ArrayList<>(shop.getListings());
-            container.clearContent();
             int start = page * 45;
             int totalPages = (int) Math.ceil(listings.size() / 45.0);
 
@@ -186,27 +184,28 @@ public final class ShopUi {
                 display.set(net.minecraft.core.component.DataComponents.LORE, new net.minecraft.world.item.component.ItemLore(List.of(
                         createPriceLore(l.price, tax),
                         labeledValue("Seller", sellerName, LABEL_SECONDARY_COLOR))));
-                container.setItem(i, display);
+                frame.set(i, display);
             }
 
             if (page > 0) {
                 ItemStack prev = new ItemStack(Items.ARROW);
                 prev.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME, Component.literal("Previous page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 3, prev);
+                frame.set(navRowStart + 3, prev);
             }
 
             if (start + 45 < listings.size()) {
                 ItemStack next = new ItemStack(Items.ARROW);
                 next.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME, Component.literal("Next page").withStyle(s -> s.withItalic(false)));
-                container.setItem(navRowStart + 5, next);
+                frame.set(navRowStart + 5, next);
             }
 
             ItemStack balance = createBalanceItem(viewer);
-            container.setItem(navRowStart, balance);
+            frame.set(navRowStart, balance);
 
             ItemStack paper = new ItemStack(Items.PAPER);
             paper.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME, Component.literal("Page " + (page + 1) + "/" + Math.max(1, totalPages)).withStyle(s -> s.withItalic(false)));
-            container.setItem(navRowStart + 4, paper);
+            frame.set(navRowStart + 4, paper);
+            frame.commit();
         }
 
         @Override
@@ -236,7 +235,7 @@ public final class ShopUi {
         @Override
         public void removed(Player player) {
             super.removed(player);
-            shop.removeListener(listener);
+            subscription.close();
         }
 
         @Override
@@ -313,7 +312,7 @@ public final class ShopUi {
                         long cost = current.price;
                         long tax = Math.round(cost * EconomyConfig.get().taxRate);
                         long total = cost + tax;
-                        long bal = eco.getBalance(player.getUUID(), true);
+                        long bal = eco.getBalance(player.getUUID());
 
                         if (bal < total) {
                             sp.sendSystemMessage(Component.literal("u a broke ass bitch lmfao").withStyle(ChatFormatting.RED));
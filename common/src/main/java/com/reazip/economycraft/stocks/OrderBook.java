@@ -0,0 +1,223 @@
+package com.reazip.economycraft.stocks;
+
+import java.util.*;
+
+/**
+ * Limit order book for one stock with price-time priority. Prices are whole
+ * money units.
+ * <p>
+ * Each side keeps its price levels in a sorted {@code long[]} with a parallel
+ * array of FIFO queues, ordered so the best level is last: taking or emptying
+ * the best level is O(1) and inserting a new level is a binary search plus an
+ * array shift. Cancelled orders stay in their queue as zero-quantity
+ * tombstones and are skipped by matching, so cancel is O(1) as well.
+ * <p>
+ * The book only moves quantities; {@link StockManager} escrows money and
+ * shares around it.
+ */
+final class OrderBook {
+    enum Side { BUY, SELL }
+
+    static final class Order {
+        final long id;
+        final UUID owner;
+        final Side side;
+        final long price;
+        long remaining;
+
+        Order(long id, UUID owner, Side side, long price, long remaining) {
+            this.id = id;
+            this.owner = owner;
+            this.side = side;
+            this.price = price;
+            this.remaining = remaining;
+        }
+    }
+
+    /** One execution against a resting order, at the resting order's price. */
+    record Fill(Order maker, long price, long qty) {}
+
+    private final Levels bids = new Levels(Side.BUY);
+    private final Levels asks = new Levels(Side.SELL);
+    private final Map<Long, Order> live = new HashMap<>();
+
+    /**
+     * Matches an incoming order against the opposite side while prices cross
+     * {@code limit}, appending to {@code fills}. Returns the unfilled quantity;
+     * the caller decides whether it rests ({@link #rest}) or is dropped.
+     */
+    long match(Side side, long limit, long qty, List<Fill> fills) {
+        Levels opposite = side == Side.BUY ? asks : bids;
+        while (qty > 0) {
+            Level level = opposite.best();
+            if (level == null || !crosses(side, limit, level.price)) break;
+            while (qty > 0) {
+                Order maker = level.orders.peekFirst();
+                if (maker == null) break;
+                if (maker.remaining == 0) {
+                    level.orders.pollFirst();
+                    continue;
+                }
+                long fill = Math.min(qty, maker.remaining);
+                maker.remaining -= fill;
+                level.quantity -= fill;
+                qty -= fill;
+                if (maker.remaining == 0) {
+                    level.orders.pollFirst();
+                    level.liveCount--;
+                    live.remove(maker.id);
+                }
+                fills.add(new Fill(maker, level.price, fill));
+            }
+            if (level.liveCount == 0) opposite.removeBest();
+        }
+        return qty;
+    }
+
+    /** Adds an order to the back of its price level. */
+    Order rest(long id, UUID owner, Side side, long price, long qty) {
+        Order order = new Order(id, owner, side, price, qty);
+        Level level = (side == Side.BUY ? bids : asks).getOrCreate(price);
+        level.orders.addLast(order);
+        level.quantity += qty;
+        level.liveCount++;
+        live.put(id, order);
+        return order;
+    }
+
+    /** Removes a resting order; returns it with its unfilled quantity, or null if unknown. */
+    Order cancel(long id) {
+        Order order = live.remove(id);
+        if (order == null) return null;
+        Levels levels = order.side == Side.BUY ? bids : asks;
+        Level level = levels.get(order.price);
+        level.quantity -= order.remaining;
+        level.liveCount--;
+        if (level.liveCount == 0) levels.remove(order.price);
+        Order removed = new Order(order.id, order.owner, order.side, order.price, order.remaining);
+        order.remaining = 0;
+        return removed;
+    }
+
+    Order get(long id) {
+        return live.get(id);
+    }
+
+    /** Total price of buying up to {@code qty} from the asks; fills beyond the book are not counted. */
+    long costToBuy(long qty) {
+        long cost = 0;
+        for (int i = asks.size - 1; i >= 0 && qty > 0; i--) {
+            Level level = asks.levels[i];
+            long take = Math.min(qty, level.quantity);
+            cost = Math.addExact(cost, Math.multiplyExact(take, level.price));
+            qty -= take;
+        }
+        return cost;
+    }
+
+    /** Best bid price, or 0 if there are no bids. */
+    long bestBid() {
+        Level level = bids.best();
+        return level == null ? 0 : level.price;
+    }
+
+    /** Best ask price, or 0 if there are no asks. */
+    long bestAsk() {
+        Level level = asks.best();
+        return level == null ? 0 : level.price;
+    }
+
+    /** Up to {@code max} levels from the best outward, as {@code [price, quantity]} pairs. */
+    long[][] depth(Side side, int max) {
+        Levels levels = side == Side.BUY ? bids : asks;
+        int n = Math.min(max, levels.size);
+        long[][] out = new long[n][];
+        for (int i = 0; i < n; i++) {
+            Level level = levels.levels[levels.size - 1 - i];
+            out[i] = new long[]{level.price, level.quantity};
+        }
+        return out;
+    }
+
+    /** Resting orders, oldest first. */
+    List<Order> orders() {
+        List<Order> out = new ArrayList<>(live.values());
+        out.sort(Comparator.comparingLong(o -> o.id));
+        return out;
+    }
+
+    boolean isEmpty() {
+        return live.isEmpty();
+    }
+
+    private static boolean crosses(Side side, long limit, long price) {
+        return side == Side.BUY ? price <= limit : price >= limit;
+    }
+
+    private static final class Level {
+        final long price;
+        final ArrayDeque<Order> orders = new ArrayDeque<>(4);
+        long quantity;
+        int liveCount;
+
+        Level(long price) {
+            this.price = price;
+        }
+    }
+
+    /** Price levels of one side, sorted so the best price is at {@code size - 1}. */
+    private static final class Levels {
+        // bids are keyed by price and asks by -price, so keys always ascend toward the best level
+        private final boolean negate;
+        private long[] keys = new long[16];
+        private Level[] levels = new Level[16];
+        private int size;
+
+        Levels(Side side) {
+            this.negate = side == Side.SELL;
+        }
+
+        Level best() {
+            return size == 0 ? null : levels[size - 1];
+        }
+
+        void removeBest() {
+            levels[--size] = null;
+        }
+
+        Level get(long price) {
+            int i = Arrays.binarySearch(keys, 0, size, key(price));
+            return i >= 0 ? levels[i] : null;
+        }
+
+        Level getOrCreate(long price) {
+            long key = key(price);
+            int i = Arrays.binarySearch(keys, 0, size, key);
+            if (i >= 0) return levels[i];
+            i = -i - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                levels = Arrays.copyOf(levels, size * 2);
+            }
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            System.arraycopy(levels, i, levels, i + 1, size - i);
+            Level level = new Level(price);
+            keys[i] = key;
+            levels[i] = level;
+            size++;
+            return level;
+        }
+
+        void remove(long price) {
+            int i = Arrays.binarySearch(keys, 0, size, key(price));
+            if (i < 0) return;
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(levels, i + 1, levels, i, size - i - 1);
+            levels[--size] = null;
+        }
+
+        private long key(long price) {
+            return negate ? -price : price;
+        }
+    }
+}
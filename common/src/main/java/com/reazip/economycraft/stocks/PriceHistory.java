@@ -0,0 +1,300 @@
+package com.reazip.economycraft.stocks;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * On-disk price history, one directory per stock under {@code stock_history/}.
+ * <p>
+ * Raw ticks go to a memory-mapped {@link TickLog} in {@code ticks/}, and
+ * {@code candles_1m.bin}, {@code candles_1h.bin} and {@code candles_1d.bin}
+ * hold fixed 40-byte OHLC records. All files are append-only and sorted by
+ * time. Every tick extends the open candle of each resolution, which is
+ * rewritten in place until its bucket ends, so candles never need to be
+ * rebuilt from ticks. Queries binary-search the timestamps with positional
+ * reads and only read the records they return.
+ * <p>
+ * Appends come from the simulation thread and queries from the server thread.
+ * Both take this store's lock for a single record or range, which also keeps
+ * closing an evicted series safe.
+ */
+final class PriceHistory {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int CANDLE_BYTES = 40;
+    // each open series holds three candle channels; past this the least recently used one is closed
+    private static final int MAX_OPEN_SERIES = 1024;
+
+    enum Resolution {
+        MINUTE("1m", 60_000L),
+        HOUR("1h", 3_600_000L),
+        DAY("1d", 86_400_000L);
+
+        final String label;
+        final long millis;
+
+        Resolution(String label, long millis) {
+            this.label = label;
+            this.millis = millis;
+        }
+
+        long bucket(long time) {
+            return time - Math.floorMod(time, millis);
+        }
+    }
+
+    record Candle(long start, double open, double high, double low, double close) {}
+
+    private final Path dir;
+    private final long retentionMillis;
+    private final int maxSegments;
+    private final Map<String, Series> series = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Retention applies to raw ticks only; see {@link TickLog#TickLog}. */
+    PriceHistory(Path dir, long retentionMillis, int maxSegments) {
+        this.dir = dir;
+        this.retentionMillis = retentionMillis;
+        this.maxSegments = maxSegments;
+    }
+
+    synchronized void append(String stockId, long time, double price) {
+        Series s = series(stockId);
+        try {
+            s.append(time, price);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to append price history for {}", stockId, ex);
+        }
+    }
+
+    /** Up to {@code n} most recent tick prices, oldest first. */
+    double[] lastPrices(String stockId, int n) {
+        List<ByteBuffer> slices = lastTicks(stockId, n);
+        int count = 0;
+        for (ByteBuffer b : slices) count += b.remaining() / TickLog.RECORD_BYTES;
+        double[] out = new double[count];
+        int i = 0;
+        for (ByteBuffer b : slices) {
+            for (int p = b.position(); p < b.limit(); p += TickLog.RECORD_BYTES) out[i++] = b.getDouble(p + 8);
+        }
+        return out;
+    }
+
+    /**
+     * Up to {@code n} most recent ticks as read-only views of the mapped
+     * segments, oldest first; each holds 16-byte (millis, price) records.
+     */
+    synchronized List<ByteBuffer> lastTicks(String stockId, int n) {
+        try {
+            return series(stockId).ticks().last(n);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to read price history for {}", stockId, ex);
+            return List.of();
+        }
+    }
+
+    /** Ticks with {@code from <= time <= to}, in the same form as {@link #lastTicks}. */
+    synchronized List<ByteBuffer> ticks(String stockId, long from, long to) {
+        try {
+            return series(stockId).ticks().range(from, to);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to read price history for {}", stockId, ex);
+            return List.of();
+        }
+    }
+
+    /** Candles whose bucket starts in {@code [from, to]}, oldest first. */
+    synchronized List<Candle> candles(String stockId, Resolution resolution, long from, long to) {
+        try {
+            return series(stockId).candles(resolution, from, to);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to read {} candles for {}", resolution.label, stockId, ex);
+            return List.of();
+        }
+    }
+
+    synchronized void close() {
+        for (Series s : series.values()) s.close();
+        series.clear();
+    }
+
+    private Series series(String stockId) {
+        Series s = series.get(stockId);
+        if (s == null) {
+            if (series.size() >= MAX_OPEN_SERIES) {
+                Iterator<Series> it = series.values().iterator();
+                it.next().close();
+                it.remove();
+            }
+            s = new Series(dir.resolve(directoryName(stockId)), stockId, retentionMillis, maxSegments);
+            series.put(stockId, s);
+        }
+        return s;
+    }
+
+    /** Stock ids are config keys; anything beyond a plain lowercase name is hex-encoded. */
+    private static String directoryName(String stockId) {
+        if (stockId.matches("[a-z0-9_-]{1,64}")) return stockId;
+        StringBuilder sb = new StringBuilder("x");
+        for (byte b : stockId.getBytes(StandardCharsets.UTF_8)) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private static final class Series {
+        private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+        private final Path dir;
+        private final String stockId;
+        private final long retentionMillis;
+        private final int maxSegments;
+        private TickLog ticks;
+        private final FileChannel[] candles = new FileChannel[RESOLUTIONS.length];
+        private long lastTime = Long.MIN_VALUE;
+        private final long[] candleCount = new long[RESOLUTIONS.length];
+        // the open (last) candle of each resolution
+        private final long[] start = new long[RESOLUTIONS.length];
+        private final double[] open = new double[RESOLUTIONS.length];
+        private final double[] high = new double[RESOLUTIONS.length];
+        private final double[] low = new double[RESOLUTIONS.length];
+        private final double[] close = new double[RESOLUTIONS.length];
+        private final ByteBuffer candleBuf = ByteBuffer.allocate(CANDLE_BYTES);
+
+        Series(Path dir, String stockId, long retentionMillis, int maxSegments) {
+            this.dir = dir;
+            this.stockId = stockId;
+            this.retentionMillis = retentionMillis;
+            this.maxSegments = maxSegments;
+        }
+
+        TickLog ticks() throws IOException {
+            ensureOpen();
+            return ticks;
+        }
+
+        private void ensureOpen() throws IOException {
+            if (ticks != null) return;
+            Files.createDirectories(dir);
+            ticks = new TickLog(dir.resolve("ticks"), retentionMillis, maxSegments);
+            Path legacy = dir.resolve("ticks.bin");
+            if (Files.exists(legacy)) ticks.importLegacy(legacy);
+            lastTime = ticks.lastTime();
+            for (int r = 0; r < RESOLUTIONS.length; r++) {
+                candles[r] = openChannel(dir.resolve("candles_" + RESOLUTIONS[r].label + ".bin"));
+                candleCount[r] = truncateToRecords(candles[r], CANDLE_BYTES);
+                start[r] = Long.MIN_VALUE;
+                if (candleCount[r] > 0) {
+                    Candle c = readCandles(candles[r], candleCount[r] - 1, 1).get(0);
+                    start[r] = c.start();
+                    open[r] = c.open();
+                    high[r] = c.high();
+                    low[r] = c.low();
+                    close[r] = c.close();
+                }
+            }
+        }
+
+        void append(long time, double price) throws IOException {
+            ensureOpen();
+            // keep files sorted if the wall clock steps backwards
+            if (time < lastTime) time = lastTime;
+            lastTime = time;
+
+            ticks.append(time, price);
+
+            for (int r = 0; r < RESOLUTIONS.length; r++) {
+                long bucket = RESOLUTIONS[r].bucket(time);
+                if (bucket == start[r]) {
+                    high[r] = Math.max(high[r], price);
+                    low[r] = Math.min(low[r], price);
+                    close[r] = price;
+                } else {
+                    start[r] = bucket;
+                    open[r] = high[r] = low[r] = close[r] = price;
+                    candleCount[r]++;
+                }
+                candleBuf.clear();
+                candleBuf.putLong(start[r]).putDouble(open[r]).putDouble(high[r]).putDouble(low[r]).putDouble(close[r]).flip();
+                writeFully(candles[r], candleBuf, (candleCount[r] - 1) * CANDLE_BYTES);
+            }
+        }
+
+        List<Candle> candles(Resolution resolution, long from, long to) throws IOException {
+            ensureOpen();
+            FileChannel ch = candles[resolution.ordinal()];
+            long n = candleCount[resolution.ordinal()];
+            long first = lowerBound(ch, n, from);
+            long end = lowerBound(ch, n, to == Long.MAX_VALUE ? to : to + 1);
+            if (end <= first) return List.of();
+            return readCandles(ch, first, (int) Math.min(end - first, Integer.MAX_VALUE / CANDLE_BYTES));
+        }
+
+        void close() {
+            try {
+                if (ticks != null) ticks.force();
+                for (FileChannel ch : candles) if (ch != null) ch.close();
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to close price history for {}", stockId, ex);
+            }
+            ticks = null;
+            Arrays.fill(candles, null);
+        }
+
+        /** First candle index whose start is {@code >= time}. */
+        private static long lowerBound(FileChannel ch, long n, long time) throws IOException {
+            long lo = 0, hi = n;
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (readLong(ch, mid * CANDLE_BYTES) < time) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private static List<Candle> readCandles(FileChannel ch, long index, int count) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(count * CANDLE_BYTES);
+            readFully(ch, buf, index * CANDLE_BYTES);
+            List<Candle> out = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int p = i * CANDLE_BYTES;
+                out.add(new Candle(buf.getLong(p), buf.getDouble(p + 8), buf.getDouble(p + 16),
+                        buf.getDouble(p + 24), buf.getDouble(p + 32)));
+            }
+            return out;
+        }
+
+        private static FileChannel openChannel(Path file) throws IOException {
+            return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        /** Drops a torn trailing record left by a crash; returns the record count. */
+        private static long truncateToRecords(FileChannel ch, int recordBytes) throws IOException {
+            long size = ch.size();
+            long whole = size - size % recordBytes;
+            if (whole != size) ch.truncate(whole);
+            return whole / recordBytes;
+        }
+
+        private static long readLong(FileChannel ch, long position) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(8);
+            readFully(ch, buf, position);
+            return buf.getLong(0);
+        }
+
+        private static void readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, position + buf.position()) < 0) throw new IOException("Unexpected end of price history");
+            }
+        }
+
+        private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+            while (buf.hasRemaining()) ch.write(buf, position + buf.position());
+        }
+    }
+}
@@ -8,6 +8,8 @@ public final class StockEntry {
     public double liquidity;
     public double[] history;
     public int historyHead = 0;
+    /** Index into the manager's {@link StockSimulation} arrays. */
+    int ordinal = -1;
 
     public StockEntry() {}
 
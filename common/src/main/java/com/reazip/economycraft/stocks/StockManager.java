@@ -2,9 +2,13 @@ package com.reazip.economycraft.stocks;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.reazip.economycraft.EconomyManager;
+import com.reazip.economycraft.storage.AtomicFiles;
+import com.reazip.economycraft.storage.SnapshotWriter;
+import com.reazip.economycraft.util.ChangeBus;
 import org.slf4j.Logger;
 import com.mojang.logging.LogUtils;
 import net.minecraft.server.MinecraftServer;
@@ -16,6 +20,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.function.Consumer;
 
 public final class StockManager {
     private static final Logger LOGGER = LogUtils.getLogger();
@@ -25,14 +30,35 @@ public final class StockManager {
     private final MinecraftServer server;
     private final Path file;
     private final Path holdingsFile;
+    private final Path ordersFile;
+    private final SnapshotWriter<JsonObject> holdingsSaver;
+    private final SnapshotWriter<JsonObject> ordersSaver;
+    private final PriceHistory history;
     private final Map<String, StockEntry> stocks = new LinkedHashMap<>();
     private final Map<UUID, Map<String, StockHolding>> holdings = new HashMap<>();
-    private final List<Runnable> listeners = new ArrayList<>();
-    private final Map<String, Long> netVolume = new HashMap<>();
+    private final ChangeBus<String> changes = new ChangeBus<>("stocks");
+    private final List<StockEntry> byOrdinal = new ArrayList<>();
+    private final StockSimulation simulation;
     private final Map<UUID, Long> lastTrade = new HashMap<>();
+    private final Map<String, OrderBook> books = new HashMap<>();
+    // stock id of every resting order, so cancel can find its book
+    private final Map<Long, String> orderStocks = new HashMap<>();
+    private long nextOrderId = 1;
 
     private java.util.concurrent.ScheduledExecutorService scheduler;
     private long tickIntervalMs = 1000L; // will be initialized from config
+    // stocks.json is rewritten every SAVE_EVERY_TICKS simulation ticks and on setPrice();
+    // holdings and orders go through their debounced savers
+    private static final int SAVE_EVERY_TICKS = 30;
+    private int ticksSinceSave;
+    // bumped by reload() and setPrice(); a computed tick from an older generation is dropped
+    private volatile int generation;
+    // true from snapshotting a tick until its commit runs on the server thread
+    private boolean tickInFlight;
+    private final Object fileLock = new Object();
+
+    /** Prices for one simulation tick, computed off-thread; never mutated after construction. */
+    private record PriceSnapshot(int generation, List<StockEntry> entries, StockSimulation state) {}
 
     public enum TradeResult {
         SUCCESS,
@@ -41,9 +67,24 @@ public final class StockManager {
         INSUFFICIENT_HOLDINGS,
         INVALID_STOCK,
         OVERSIZED,
+        NO_LIQUIDITY,
+        UNKNOWN_ORDER,
         ERROR
     }
 
+    /**
+     * Outcome of {@link #placeOrder}: how much traded immediately and for how
+     * much money, and the id and size of the resting remainder (0 if none).
+     */
+    public record OrderResult(TradeResult result, long filled, long value, long orderId, long resting) {
+        static OrderResult rejected(TradeResult result) {
+            return new OrderResult(result, 0, 0, 0, 0);
+        }
+    }
+
+    /** A player's resting limit order. */
+    public record RestingOrder(long id, String stockId, boolean buy, long price, long remaining) {}
+
     public StockManager(MinecraftServer server) {
         this.server = server;
         Path dir = server.getFile("config/economycraft");
@@ -51,28 +92,34 @@ public final class StockManager {
 
         this.file = dir.resolve("stocks.json");
         this.holdingsFile = dir.resolve("holdings.json");
+        this.ordersFile = dir.resolve("stock_orders.json");
+        this.holdingsSaver = new SnapshotWriter<>(holdingsFile, this::holdingsJson, StockManager::encodeJson, server);
+        this.ordersSaver = new SnapshotWriter<>(ordersFile, this::ordersJson, StockManager::encodeJson, server);
 
-        if (Files.notExists(this.file)) {
+        if (!AtomicFiles.exists(this.file)) {
             createFromBundledDefault();
         }
 
         // initialize from config (loaded by EconomyCraft during server start)
-        try {
-            this.tickIntervalMs = com.reazip.economycraft.EconomyConfig.get().stockTickIntervalMs;
-        } catch (Exception ignored) {}
+        com.reazip.economycraft.EconomyConfig config = com.reazip.economycraft.EconomyConfig.get();
+        this.tickIntervalMs = config.stockTickIntervalMs;
+        long seed = config.stockSimulationSeed != null ? config.stockSimulationSeed : System.nanoTime();
+        this.simulation = new StockSimulation(StockSimulation.PriceModel.byName(config.stockSimulationModel), seed);
+        this.history = new PriceHistory(dir.resolve("stock_history"),
+                Math.max(0, config.stockHistoryRetentionDays) * 86_400_000L,
+                Math.max(0, config.stockHistoryMaxSegments));
 
         reload();
         loadHoldings();
+        loadOrders();
         startSimulation();
     }
 
     private void loadHoldings() {
         holdings.clear();
-        if (Files.notExists(holdingsFile)) return;
+        JsonObject root = AtomicFiles.readJson(holdingsFile);
+        if (root == null) return;
         try {
-            String json = Files.readString(holdingsFile, StandardCharsets.UTF_8);
-            JsonObject root = GSON.fromJson(json, JsonObject.class);
-            if (root == null) return;
             for (Map.Entry<String, JsonElement> e : root.entrySet()) {
                 try {
                     UUID player = UUID.fromString(e.getKey());
@@ -94,6 +141,36 @@ public final class StockManager {
     }
 
 
+    private void loadOrders() {
+        books.clear();
+        orderStocks.clear();
+        JsonObject root = AtomicFiles.readJson(ordersFile);
+        if (root == null) return;
+        try {
+            if (root.has("nextId")) nextOrderId = root.get("nextId").getAsLong();
+            List<JsonObject> entries = new ArrayList<>();
+            for (JsonElement e : root.getAsJsonArray("orders")) entries.add(e.getAsJsonObject());
+            // re-rest in id order to restore time priority within each level
+            entries.sort(Comparator.comparingLong(o -> o.get("id").getAsLong()));
+            for (JsonObject o : entries) {
+                try {
+                    long id = o.get("id").getAsLong();
+                    String stockId = o.get("stock").getAsString();
+                    UUID owner = UUID.fromString(o.get("owner").getAsString());
+                    OrderBook.Side side = OrderBook.Side.valueOf(o.get("side").getAsString());
+                    books.computeIfAbsent(stockId, k -> new OrderBook())
+                            .rest(id, owner, side, o.get("price").getAsLong(), o.get("remaining").getAsLong());
+                    orderStocks.put(id, stockId);
+                    nextOrderId = Math.max(nextOrderId, id + 1);
+                } catch (Exception ex) {
+                    LOGGER.warn("Failed to parse stock order {}", o, ex);
+                }
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Failed to load stock orders from {}", ordersFile, ex);
+        }
+    }
+
     private static final Map<MinecraftServer, StockManager> INSTANCES = new HashMap<>();
 
     public static synchronized StockManager get(MinecraftServer server) {
@@ -115,13 +192,14 @@ public final class StockManager {
     }
 
     public synchronized void reload() {
+        generation++;
         stocks.clear();
-        if (Files.notExists(file)) return;
+        byOrdinal.clear();
+        simulation.clear();
+        changes.changedAll();
+        JsonObject root = AtomicFiles.readJson(file);
+        if (root == null) return;
         try {
-            String json = Files.readString(file, StandardCharsets.UTF_8);
-            JsonObject root = GSON.fromJson(json, JsonObject.class);
-            if (root == null) return;
-
             for (Map.Entry<String, JsonElement> e : root.entrySet()) {
                 String key = e.getKey();
                 JsonObject obj = e.getValue().getAsJsonObject();
@@ -130,8 +208,13 @@ public final class StockManager {
                 double liq = obj.has("liquidity") ? obj.get("liquidity").getAsDouble() : 1000.0;
                 int historySize = obj.has("historySize") ? obj.get("historySize").getAsInt() : 9;
                 String name = obj.has("name") ? obj.get("name").getAsString() : key;
+                double basePrice = obj.has("basePrice") ? obj.get("basePrice").getAsDouble() : price;
                 StockEntry se = new StockEntry(key, name, price, vol, liq, historySize);
+                // restore the sparkline from recorded ticks
+                for (double p : history.lastPrices(key, historySize)) se.appendHistory(p);
+                se.ordinal = simulation.add(price, basePrice, vol, liq);
                 stocks.put(key, se);
+                byOrdinal.add(se);
             }
         } catch (Exception ex) {
             LOGGER.error("Failed to load stocks.json from {}", file, ex);
@@ -173,9 +256,9 @@ public final class StockManager {
             h.quantity = newQty;
             h.avgCost = newAvg;
         }
-        notifyListeners();
-        save();
-        netVolume.put(stockId, netVolume.getOrDefault(stockId, 0L) + qty);
+        changes.changed(stockId);
+        holdingsSaver.markDirty();
+        simulation.addVolume(s.ordinal, qty);
         lastTrade.put(player, now);
         return TradeResult.SUCCESS;
     }
@@ -198,13 +281,137 @@ public final class StockManager {
 
         EconomyManager manager = com.reazip.economycraft.EconomyCraft.getManager(server);
         manager.addMoney(player, proceeds);
-        notifyListeners();
-        save();
-        netVolume.put(stockId, netVolume.getOrDefault(stockId, 0L) - qty);
+        changes.changed(stockId);
+        holdingsSaver.markDirty();
+        simulation.addVolume(s.ordinal, -qty);
         lastTrade.put(player, now);
         return TradeResult.SUCCESS;
     }
 
+    /**
+     * Submits a player order to the stock's book. {@code limitPrice <= 0} is a
+     * market order, which fills what it can and drops the rest; a limit order
+     * rests any unfilled remainder. Buys escrow their money and sells their
+     * shares up front; fills execute at the resting order's price and a buyer
+     * filled below their limit is refunded the difference.
+     */
+    public synchronized OrderResult placeOrder(UUID player, String stockId, boolean buy, long qty, long limitPrice) {
+        StockEntry s = stocks.get(stockId);
+        if (s == null || qty <= 0) return OrderResult.rejected(TradeResult.INVALID_STOCK);
+        long now = System.currentTimeMillis();
+        long cooldown = com.reazip.economycraft.EconomyConfig.get().stockTradeCooldownMs;
+        Long last = lastTrade.get(player);
+        if (last != null && now - last < cooldown) return OrderResult.rejected(TradeResult.COOLDOWN);
+        if (qty > com.reazip.economycraft.EconomyConfig.get().stockMaxTradeQty) return OrderResult.rejected(TradeResult.OVERSIZED);
+
+        boolean market = limitPrice <= 0;
+        OrderBook book = books.computeIfAbsent(stockId, k -> new OrderBook());
+        EconomyManager manager = com.reazip.economycraft.EconomyCraft.getManager(server);
+        long escrow = 0;
+        double costBasis = 0;
+        if (buy) {
+            try {
+                escrow = market ? book.costToBuy(qty) : Math.multiplyExact(limitPrice, qty);
+            } catch (ArithmeticException e) {
+                return OrderResult.rejected(TradeResult.OVERSIZED);
+            }
+            if (market && escrow == 0) return OrderResult.rejected(TradeResult.NO_LIQUIDITY);
+            if (!manager.removeMoney(player, escrow)) return OrderResult.rejected(TradeResult.INSUFFICIENT_FUNDS);
+        } else {
+            if (market && book.bestBid() == 0) return OrderResult.rejected(TradeResult.NO_LIQUIDITY);
+            Map<String, StockHolding> m = holdings.get(player);
+            StockHolding h = m == null ? null : m.get(stockId);
+            if (h == null || h.quantity < qty) return OrderResult.rejected(TradeResult.INSUFFICIENT_HOLDINGS);
+            costBasis = h.avgCost;
+            h.quantity -= qty;
+            if (h.quantity <= 0) m.remove(stockId);
+        }
+
+        OrderBook.Side side = buy ? OrderBook.Side.BUY : OrderBook.Side.SELL;
+        List<OrderBook.Fill> fills = new ArrayList<>();
+        long left = book.match(side, market ? (buy ? Long.MAX_VALUE : 0) : limitPrice, qty, fills);
+        long value = 0;
+        for (OrderBook.Fill f : fills) {
+            long amount = f.price() * f.qty(); // bounded by an escrow that already fit in a long
+            value += amount;
+            OrderBook.Order maker = f.maker();
+            if (buy) {
+                manager.addMoney(maker.owner, amount);
+                credit(player, stockId, f.qty(), f.price());
+            } else {
+                manager.addMoney(player, amount);
+                credit(maker.owner, stockId, f.qty(), f.price());
+            }
+            if (maker.remaining == 0) orderStocks.remove(maker.id);
+        }
+
+        long orderId = 0;
+        long resting = 0;
+        if (left > 0 && !market) {
+            orderId = nextOrderId++;
+            book.rest(orderId, player, side, limitPrice, left);
+            orderStocks.put(orderId, stockId);
+            resting = left;
+        } else if (left > 0 && !buy) {
+            credit(player, stockId, left, costBasis);
+        }
+        if (buy) {
+            long refund = escrow - value - resting * limitPrice;
+            if (refund > 0) manager.addMoney(player, refund);
+        }
+
+        long filled = qty - left;
+        if (filled > 0) {
+            simulation.addVolume(s.ordinal, buy ? filled : -filled);
+            changes.changed(stockId);
+        }
+        lastTrade.put(player, now);
+        holdingsSaver.markDirty();
+        ordersSaver.markDirty();
+        return new OrderResult(TradeResult.SUCCESS, filled, value, orderId, resting);
+    }
+
+    /** Cancels one of the player's resting orders and releases its escrow. */
+    public synchronized TradeResult cancelOrder(UUID player, long orderId) {
+        String stockId = orderStocks.get(orderId);
+        OrderBook book = stockId == null ? null : books.get(stockId);
+        OrderBook.Order order = book == null ? null : book.get(orderId);
+        if (order == null || !order.owner.equals(player)) return TradeResult.UNKNOWN_ORDER;
+
+        OrderBook.Order cancelled = book.cancel(orderId);
+        orderStocks.remove(orderId);
+        if (cancelled.side == OrderBook.Side.BUY) {
+            com.reazip.economycraft.EconomyCraft.getManager(server).addMoney(player, cancelled.price * cancelled.remaining);
+        } else {
+            Map<String, StockHolding> m = holdings.get(player);
+            StockHolding h = m == null ? null : m.get(stockId);
+            credit(player, stockId, cancelled.remaining, h != null ? h.avgCost : cancelled.price);
+            holdingsSaver.markDirty();
+        }
+        ordersSaver.markDirty();
+        return TradeResult.SUCCESS;
+    }
+
+    public synchronized List<RestingOrder> getOrders(UUID player) {
+        List<RestingOrder> out = new ArrayList<>();
+        for (Map.Entry<String, OrderBook> e : books.entrySet()) {
+            for (OrderBook.Order o : e.getValue().orders()) {
+                if (o.owner.equals(player)) {
+                    out.add(new RestingOrder(o.id, e.getKey(), o.side == OrderBook.Side.BUY, o.price, o.remaining));
+                }
+            }
+        }
+        out.sort(Comparator.comparingLong(RestingOrder::id));
+        return out;
+    }
+
+    /** Up to {@code max} price levels of one side from the best outward, as {@code [price, quantity]} pairs. */
+    public synchronized long[][] getDepth(String stockId, boolean bids, int max) {
+        OrderBook book = books.get(stockId);
+        if (book == null) return new long[0][];
+        return book.depth(bids ? OrderBook.Side.BUY : OrderBook.Side.SELL, max);
+    }
+
     private void startSimulation() {
         if (scheduler != null) return;
         scheduler = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
@@ -212,86 +419,203 @@ public final class StockManager {
             t.setDaemon(true);
             return t;
         });
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                // run simulation on server thread
-                server.execute(this::simulateTick);
-            } catch (Exception ex) {
-                LOGGER.warn("Failed to schedule stock simulateTick", ex);
-            }
-        }, tickIntervalMs, tickIntervalMs, java.util.concurrent.TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::computeTick, tickIntervalMs, tickIntervalMs,
+                java.util.concurrent.TimeUnit.MILLISECONDS);
     }
 
     private void stopSimulation() {
         if (scheduler != null) {
-            try { scheduler.shutdownNow(); } catch (Exception ignored) {}
+            scheduler.shutdown();
+            try {
+                // let an in-progress stocks.json write finish
+                scheduler.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
             scheduler = null;
         }
     }
 
-    private synchronized void simulateTick() {
-        // Simple simulation: apply netVolume impact and random noise
-        for (Map.Entry<String, StockEntry> e : stocks.entrySet()) {
-            String id = e.getKey();
-            StockEntry s = e.getValue();
-            long vol = netVolume.getOrDefault(id, 0L);
-            // volume impact proportional to qty / liquidity
-            double impact = (vol / (s.liquidity + 1.0)) * 0.01; // scale
-            double noise = (Math.random() - 0.5) * s.volatility * s.price;
-            double newPrice = s.price * (1.0 + impact) + noise;
-            // clamp to 1 cent minimum and limit per-tick move to 20%
-            double maxMove = s.price * 0.20;
-            double delta = Math.max(-maxMove, Math.min(maxMove, newPrice - s.price));
-            s.price = Math.max(0.01, s.price + delta);
+    /** Stops the simulation thread and writes final state; called when the server stops. */
+    public void close() {
+        stopSimulation();
+        synchronized (this) {
+            saveStocks();
+        }
+        holdingsSaver.close();
+        ordersSaver.close();
+        history.close();
+    }
+
+    /**
+     * Simulation thread: copies the state and drains traded volume under the
+     * lock, steps the copy without it and hands the result to the server thread.
+     */
+    private void computeTick() {
+        try {
+            PriceSnapshot snapshot;
+            synchronized (this) {
+                if (tickInFlight || byOrdinal.isEmpty()) return;
+                snapshot = new PriceSnapshot(generation, List.copyOf(byOrdinal), simulation.split());
+                simulation.clearVolume();
+                tickInFlight = true;
+            }
+            snapshot.state().step();
+            server.execute(() -> commitTick(snapshot));
+        } catch (Exception ex) {
+            LOGGER.warn("Failed to compute stock tick", ex);
+            synchronized (this) {
+                tickInFlight = false;
+            }
+        }
+    }
+
+    /** Server thread: publishes a computed tick. */
+    private synchronized void commitTick(PriceSnapshot snapshot) {
+        tickInFlight = false;
+        if (snapshot.generation() != generation) return;
+        simulation.copyPricesFrom(snapshot.state());
+        for (int i = 0; i < byOrdinal.size(); i++) {
+            StockEntry s = byOrdinal.get(i);
+            s.price = simulation.price(i);
             s.appendHistory(s.price);
+            changes.changed(s.id);
+        }
+        long now = System.currentTimeMillis();
+        onSimulationThread(() -> recordHistory(snapshot, now));
+        if (++ticksSinceSave >= SAVE_EVERY_TICKS) {
+            ticksSinceSave = 0;
+            onSimulationThread(() -> writeStocks(snapshot));
         }
-        netVolume.clear();
-        notifyListeners();
-        save();
     }
 
-    public synchronized void addListener(Runnable r) { listeners.add(r); }
-    public synchronized void removeListener(Runnable r) { listeners.remove(r); }
+    /** Runs file work on the simulation thread, in submission order; dropped once it has stopped. */
+    private void onSimulationThread(Runnable task) {
+        java.util.concurrent.ScheduledExecutorService sim = scheduler;
+        if (sim == null) return;
+        try {
+            sim.execute(task);
+        } catch (java.util.concurrent.RejectedExecutionException ignored) {
+            // shutting down; close() saves
+        }
+    }
 
-    private void notifyListeners() {
-        for (Runnable r : listeners) {
-            try { r.run(); } catch (Exception ignored) {}
+    private void recordHistory(PriceSnapshot snapshot, long time) {
+        for (StockEntry s : snapshot.entries()) {
+            history.append(s.id, time, snapshot.state().price(s.ordinal));
         }
     }
 
+    /** Candles for the last {@code count} buckets of {@code resolution}, oldest first. */
+    List<PriceHistory.Candle> getCandles(String stockId, PriceHistory.Resolution resolution, int count) {
+        long now = System.currentTimeMillis();
+        long from = resolution.bucket(now) - (count - 1) * resolution.millis;
+        return history.candles(stockId, resolution, from, Long.MAX_VALUE);
+    }
+
+    /** Subscribes to changed stock ids, delivered at most once per server tick. */
+    public ChangeBus.Subscription subscribe(Consumer<ChangeBus.Change<String>> listener) {
+        return changes.subscribe(listener);
+    }
+
+    /** Delivers this tick's changes; called from the server tick event. */
+    public void flushChanges() {
+        changes.flush();
+    }
+
+    /** Writes stocks.json now and schedules holdings and orders on their savers. */
     public synchronized void save() {
+        saveStocks();
+        holdingsSaver.markDirty();
+        ordersSaver.markDirty();
+    }
+
+    private void saveStocks() {
+        ticksSinceSave = 0;
+        String json = stocksJson(byOrdinal, simulation);
+        synchronized (fileLock) {
+            writeStocksFile(json);
+        }
+    }
+
+    /** Simulation thread: periodic save of a committed tick, serialized off the server thread. */
+    private void writeStocks(PriceSnapshot snapshot) {
+        String json = stocksJson(snapshot.entries(), snapshot.state());
+        synchronized (fileLock) {
+            // a reload or admin price change since this tick has already been saved
+            if (snapshot.generation() != generation) return;
+            writeStocksFile(json);
+        }
+    }
+
+    private static String stocksJson(List<StockEntry> entries, StockSimulation state) {
+        JsonObject root = new JsonObject();
+        for (StockEntry s : entries) {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("name", s.name);
+            obj.addProperty("price", state.price(s.ordinal));
+            obj.addProperty("basePrice", state.basePrice(s.ordinal));
+            obj.addProperty("volatility", s.volatility);
+            obj.addProperty("liquidity", s.liquidity);
+            obj.addProperty("historySize", s.history == null ? 0 : s.history.length);
+            root.add(s.id, obj);
+        }
+        return GSON.toJson(root);
+    }
+
+    private void writeStocksFile(String json) {
         try {
-            JsonObject root = new JsonObject();
-            for (Map.Entry<String, StockEntry> e : stocks.entrySet()) {
-                StockEntry s = e.getValue();
-                JsonObject obj = new JsonObject();
-                obj.addProperty("name", s.name);
-                obj.addProperty("price", s.price);
-                obj.addProperty("volatility", s.volatility);
-                obj.addProperty("liquidity", s.liquidity);
-                obj.addProperty("historySize", s.history == null ? 0 : s.history.length);
-                root.add(e.getKey(), obj);
+            AtomicFiles.write(file, json);
+        } catch (IOException ex) {
+            LOGGER.error("Failed to save stocks to {}", file, ex);
+        }
+    }
+
+    /** Server thread: snapshot of all holdings for {@link #holdingsSaver}. */
+    private synchronized JsonObject holdingsJson() {
+        JsonObject root = new JsonObject();
+        for (Map.Entry<UUID, Map<String, StockHolding>> p : holdings.entrySet()) {
+            JsonObject mapObj = new JsonObject();
+            for (Map.Entry<String, StockHolding> h : p.getValue().entrySet()) {
+                mapObj.add(h.getKey(), GSON.toJsonTree(h.getValue()));
             }
-            Files.writeString(file, GSON.toJson(root));
-        } catch (IOException ignored) {}
+            root.add(p.getKey().toString(), mapObj);
+        }
+        return root;
+    }
 
-        // save holdings
-        try {
-            JsonObject root = new JsonObject();
-            for (Map.Entry<UUID, Map<String, StockHolding>> p : holdings.entrySet()) {
-                JsonObject mapObj = new JsonObject();
-                for (Map.Entry<String, StockHolding> h : p.getValue().entrySet()) {
-                    mapObj.add(h.getKey(), GSON.toJsonTree(h.getValue()));
-                }
-                root.add(p.getKey().toString(), mapObj);
+    /** Server thread: snapshot of all resting orders for {@link #ordersSaver}. */
+    private synchronized JsonObject ordersJson() {
+        JsonObject root = new JsonObject();
+        root.addProperty("nextId", nextOrderId);
+        JsonArray arr = new JsonArray();
+        for (Map.Entry<String, OrderBook> e : books.entrySet()) {
+            for (OrderBook.Order o : e.getValue().orders()) {
+                JsonObject obj = new JsonObject();
+                obj.addProperty("id", o.id);
+                obj.addProperty("stock", e.getKey());
+                obj.addProperty("owner", o.owner.toString());
+                obj.addProperty("side", o.side.name());
+                obj.addProperty("price", o.price);
+                obj.addProperty("remaining", o.remaining);
+                arr.add(obj);
             }
-            Files.writeString(holdingsFile, GSON.toJson(root));
-        } catch (IOException ex) {
-            LOGGER.error("Failed to save holdings to {}", holdingsFile, ex);
         }
+        root.add("orders", arr);
+        return root;
+    }
+
+    private static byte[] encodeJson(JsonObject root) {
+        return GSON.toJson(root).getBytes(StandardCharsets.UTF_8);
     }
 
     public synchronized void addHolding(UUID player, String stockId, long qty, double avgCost) {
+        credit(player, stockId, qty, avgCost);
+        holdingsSaver.markDirty();
+    }
+
+    /** Adds shares at {@code avgCost} each, merging into the average cost; does not save. */
+    private void credit(UUID player, String stockId, long qty, double avgCost) {
         if (qty <= 0) return;
         Map<String, StockHolding> m = holdings.computeIfAbsent(player, k -> new HashMap<>());
         StockHolding h = m.get(stockId);
@@ -302,16 +626,21 @@ public final class StockManager {
             h.quantity = newQty;
             h.avgCost = newAvg;
         }
-        save();
     }
 
     public synchronized void setPrice(String stockId, double price) {
         StockEntry s = stocks.get(stockId);
         if (s == null) return;
-        s.price = Math.max(0.01, price);
+        generation++;
+        simulation.setPrice(s.ordinal, price);
+        s.price = simulation.price(s.ordinal);
         s.appendHistory(s.price);
-        save();
-        notifyListeners();
+        double recorded = s.price;
+        long now = System.currentTimeMillis();
+        onSimulationThread(() -> history.append(stockId, now, recorded));
+        // the generation bump drops pending periodic writes, so persist the new price here
+        saveStocks();
+        changes.changed(stockId);
     }
 
 }
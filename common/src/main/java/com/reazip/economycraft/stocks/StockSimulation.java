@@ -0,0 +1,144 @@
+package com.reazip.economycraft.stocks;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Price simulation state for every stock, held in primitive arrays indexed by
+ * stock ordinal so a tick is one linear pass with no boxing or map lookups.
+ * <p>
+ * Noise comes from a per-engine {@link SplittableRandom}; the same seed, stock
+ * list and trade volumes always produce the same price path.
+ */
+final class StockSimulation {
+    private static final double MIN_PRICE = 0.01;
+    private static final double MAX_MOVE = 0.20;
+    private static final double IMPACT_SCALE = 0.01;
+
+    /** Next price before volume impact and clamping. */
+    @FunctionalInterface
+    interface PriceModel {
+        double next(double price, double volatility, double anchor, SplittableRandom rng);
+
+        /** Uniform noise of +/- volatility/2 around the current price; the original model. */
+        PriceModel RANDOM_WALK = (price, volatility, anchor, rng) ->
+                price + (rng.nextDouble() - 0.5) * volatility * price;
+
+        /** Geometric Brownian motion with zero drift; volatility is the per-tick sigma. */
+        PriceModel GBM = (price, volatility, anchor, rng) ->
+                price * Math.exp(-0.5 * volatility * volatility + volatility * rng.nextGaussian());
+
+        /** Log price pulled back toward the stock's base price (Ornstein-Uhlenbeck). */
+        PriceModel MEAN_REVERSION = (price, volatility, anchor, rng) ->
+                price * Math.exp(0.05 * Math.log(anchor / price) + volatility * rng.nextGaussian());
+
+        static PriceModel byName(String name) {
+            if (name == null) return RANDOM_WALK;
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "gbm" -> GBM;
+                case "mean_reversion" -> MEAN_REVERSION;
+                default -> RANDOM_WALK;
+            };
+        }
+    }
+
+    private final PriceModel model;
+    private final SplittableRandom rng;
+    private int size;
+    private double[] price = new double[16];
+    private double[] volatility = new double[16];
+    private double[] liquidity = new double[16];
+    private double[] anchor = new double[16];
+    private long[] volume = new long[16];
+
+    StockSimulation(PriceModel model, long seed) {
+        this(model, new SplittableRandom(seed));
+    }
+
+    private StockSimulation(PriceModel model, SplittableRandom rng) {
+        this.model = model;
+        this.rng = rng;
+    }
+
+    /** Independent engine over a copy of this one's state, with a split-off random stream. */
+    StockSimulation split() {
+        StockSimulation copy = new StockSimulation(model, rng.split());
+        copy.size = size;
+        copy.price = price.clone();
+        copy.volatility = volatility.clone();
+        copy.liquidity = liquidity.clone();
+        copy.anchor = anchor.clone();
+        copy.volume = volume.clone();
+        return copy;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /** Adds a stock and returns its ordinal. */
+    int add(double initialPrice, double basePrice, double vol, double liq) {
+        if (size == price.length) grow();
+        int i = size++;
+        price[i] = initialPrice;
+        volatility[i] = vol;
+        liquidity[i] = liq;
+        anchor[i] = Math.max(MIN_PRICE, basePrice);
+        volume[i] = 0;
+        return i;
+    }
+
+    double price(int ordinal) {
+        return price[ordinal];
+    }
+
+    /** Price the mean-reversion model pulls toward. */
+    double basePrice(int ordinal) {
+        return anchor[ordinal];
+    }
+
+    void setPrice(int ordinal, double value) {
+        price[ordinal] = Math.max(MIN_PRICE, value);
+    }
+
+    /** Takes every price from {@code other}, which must hold the same stocks. */
+    void copyPricesFrom(StockSimulation other) {
+        System.arraycopy(other.price, 0, price, 0, size);
+    }
+
+    void clearVolume() {
+        Arrays.fill(volume, 0, size, 0L);
+    }
+
+    /** Records net traded quantity (buys positive, sells negative) for the next tick. */
+    void addVolume(int ordinal, long qty) {
+        volume[ordinal] += qty;
+    }
+
+    /** Advances every stock one tick and resets the traded volume. */
+    void step() {
+        for (int i = 0; i < size; i++) {
+            double p = price[i];
+            double impact = (volume[i] / (liquidity[i] + 1.0)) * IMPACT_SCALE;
+            double next = model.next(p, volatility[i], anchor[i], rng) + p * impact;
+            double maxMove = p * MAX_MOVE;
+            double delta = Math.max(-maxMove, Math.min(maxMove, next - p));
+            price[i] = Math.max(MIN_PRICE, p + delta);
+        }
+        clearVolume();
+    }
+
+    private void grow() {
+        int n = price.length * 2;
+        price = Arrays.copyOf(price, n);
+        volatility = Arrays.copyOf(volatility, n);
+        liquidity = Arrays.copyOf(liquidity, n);
+        anchor = Arrays.copyOf(anchor, n);
+        volume = Arrays.copyOf(volume, n);
+    }
+}
@@ -4,16 +4,29 @@ import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.arguments.DoubleArgumentType;
 import com.mojang.brigadier.arguments.LongArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.reazip.economycraft.EconomyCraft;
 import com.reazip.economycraft.util.PermissionCompat;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.arguments.EntityArgument;
+import net.minecraft.ChatFormatting;
 import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.server.level.ServerPlayer;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
 import static net.minecraft.commands.Commands.argument;
 import static net.minecraft.commands.Commands.literal;
 
 public final class StocksCommand {
+    private static final int CHART_CANDLES = 12;
+    private static final DateTimeFormatter CLOCK = DateTimeFormatter.ofPattern("HH:mm").withZone(ZoneId.systemDefault());
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("MM-dd").withZone(ZoneId.systemDefault());
+
     private StocksCommand() {}
 
     public static LiteralArgumentBuilder<CommandSourceStack> register() {
@@ -29,6 +42,26 @@ public final class StocksCommand {
                     }
                 });
 
+        // order book subcommands
+        base.then(literal("order")
+                .then(orderSide("buy", true))
+                .then(orderSide("sell", false))
+                .then(literal("cancel").then(argument("id", LongArgumentType.longArg(1))
+                        .executes(ctx -> cancelOrder(ctx.getSource(), LongArgumentType.getLong(ctx, "id"))))));
+
+        base.then(literal("orders").executes(ctx -> listOrders(ctx.getSource())));
+
+        base.then(literal("book").then(argument("stock", StringArgumentType.word())
+                .executes(ctx -> showBook(ctx.getSource(), StringArgumentType.getString(ctx, "stock")))));
+
+        var chartStock = argument("stock", StringArgumentType.word())
+                .executes(ctx -> sendChart(ctx.getSource(), StringArgumentType.getString(ctx, "stock"), PriceHistory.Resolution.MINUTE));
+        for (PriceHistory.Resolution resolution : PriceHistory.Resolution.values()) {
+            chartStock.then(literal(resolution.label)
+                    .executes(ctx -> sendChart(ctx.getSource(), StringArgumentType.getString(ctx, "stock"), resolution)));
+        }
+        base.then(literal("chart").then(chartStock));
+
         // admin subcommands
         LiteralArgumentBuilder<CommandSourceStack> admin = literal("admin").requires(PermissionCompat.gamemaster());
 
@@ -109,4 +142,126 @@ public final class StocksCommand {
 
         return base;
     }
+
+    /** {@code <stock> <qty>} places a market order; adding {@code <price>} makes it a limit order. */
+    private static LiteralArgumentBuilder<CommandSourceStack> orderSide(String name, boolean buy) {
+        return literal(name).then(argument("stock", StringArgumentType.word()).then(
+                argument("qty", LongArgumentType.longArg(1))
+                        .executes(ctx -> placeOrder(ctx.getSource(), StringArgumentType.getString(ctx, "stock"),
+                                LongArgumentType.getLong(ctx, "qty"), buy, 0))
+                        .then(argument("price", LongArgumentType.longArg(1))
+                                .executes(ctx -> placeOrder(ctx.getSource(), StringArgumentType.getString(ctx, "stock"),
+                                        LongArgumentType.getLong(ctx, "qty"), buy, LongArgumentType.getLong(ctx, "price"))))));
+    }
+
+    private static int placeOrder(CommandSourceStack source, String stockId, long qty, boolean buy, long limitPrice) throws CommandSyntaxException {
+        ServerPlayer player = source.getPlayerOrException();
+        StockManager.OrderResult res = StockManager.get(source.getServer()).placeOrder(player.getUUID(), stockId, buy, qty, limitPrice);
+        switch (res.result()) {
+            case SUCCESS -> {
+                StringBuilder sb = new StringBuilder();
+                if (res.filled() > 0) {
+                    sb.append(buy ? "Bought " : "Sold ").append(res.filled()).append(' ').append(stockId)
+                            .append(" for ").append(EconomyCraft.formatMoney(res.value())).append(". ");
+                }
+                if (res.resting() > 0) {
+                    sb.append("Order #").append(res.orderId()).append(" resting: ").append(buy ? "buy " : "sell ")
+                            .append(res.resting()).append(" @ ").append(EconomyCraft.formatMoney(limitPrice)).append('.');
+                } else if (res.filled() < qty) {
+                    sb.append("Unfilled ").append(qty - res.filled()).append(" returned.");
+                }
+                source.sendSuccess(() -> Component.literal(sb.toString().trim()), false);
+                return 1;
+            }
+            case INSUFFICIENT_FUNDS -> source.sendFailure(Component.literal("Order failed: insufficient funds"));
+            case INSUFFICIENT_HOLDINGS -> source.sendFailure(Component.literal("Order failed: insufficient holdings"));
+            case COOLDOWN -> source.sendFailure(Component.literal("Order failed: trade cooldown active"));
+            case OVERSIZED -> source.sendFailure(Component.literal("Order failed: trade exceeds max allowed quantity"));
+            case NO_LIQUIDITY -> source.sendFailure(Component.literal("Order failed: no " + (buy ? "sellers" : "buyers") + " for " + stockId));
+            case INVALID_STOCK -> source.sendFailure(Component.literal("Unknown stock: " + stockId));
+            default -> source.sendFailure(Component.literal("Order failed"));
+        }
+        return 0;
+    }
+
+    private static int cancelOrder(CommandSourceStack source, long orderId) throws CommandSyntaxException {
+        ServerPlayer player = source.getPlayerOrException();
+        if (StockManager.get(source.getServer()).cancelOrder(player.getUUID(), orderId) != StockManager.TradeResult.SUCCESS) {
+            source.sendFailure(Component.literal("No open order #" + orderId));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal("Cancelled order #" + orderId + "."), false);
+        return 1;
+    }
+
+    private static int listOrders(CommandSourceStack source) throws CommandSyntaxException {
+        ServerPlayer player = source.getPlayerOrException();
+        var orders = StockManager.get(source.getServer()).getOrders(player.getUUID());
+        if (orders.isEmpty()) {
+            source.sendSuccess(() -> Component.literal("You have no open stock orders."), false);
+            return 1;
+        }
+        StringBuilder sb = new StringBuilder("Open stock orders:");
+        for (StockManager.RestingOrder o : orders) {
+            sb.append("\n#").append(o.id()).append(' ').append(o.buy() ? "buy " : "sell ")
+                    .append(o.remaining()).append(' ').append(o.stockId())
+                    .append(" @ ").append(EconomyCraft.formatMoney(o.price()));
+        }
+        source.sendSuccess(() -> Component.literal(sb.toString()), false);
+        return 1;
+    }
+
+    /** Prints the last {@link #CHART_CANDLES} OHLC candles, each with a bar for its close within the shown range. */
+    static int sendChart(CommandSourceStack source, String stockId, PriceHistory.Resolution resolution) {
+        StockManager stocks = StockManager.get(source.getServer());
+        StockEntry stock = stocks.get(stockId);
+        if (stock == null) {
+            source.sendFailure(Component.literal("Unknown stock: " + stockId));
+            return 0;
+        }
+        List<PriceHistory.Candle> candles = stocks.getCandles(stockId, resolution, CHART_CANDLES);
+        if (candles.isEmpty()) {
+            source.sendSuccess(() -> Component.literal("No price history for " + stock.name + " yet."), false);
+            return 1;
+        }
+        double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+        for (PriceHistory.Candle c : candles) {
+            min = Math.min(min, c.low());
+            max = Math.max(max, c.high());
+        }
+        DateTimeFormatter time = resolution == PriceHistory.Resolution.DAY ? DATE : CLOCK;
+        MutableComponent msg = Component.literal(stock.name + " (" + resolution.label + ")");
+        for (PriceHistory.Candle c : candles) {
+            boolean up = c.close() >= c.open();
+            msg.append(Component.literal("\n" + time.format(Instant.ofEpochMilli(c.start())) + " ").withStyle(ChatFormatting.GRAY));
+            msg.append(Component.literal(String.valueOf(StocksUi.sparkBar(c.close(), min, max)) + " ")
+                    .withStyle(up ? ChatFormatting.GREEN : ChatFormatting.RED));
+            msg.append(Component.literal(EconomyCraft.formatMoney(Math.round(c.open())) + " -> "
+                    + EconomyCraft.formatMoney(Math.round(c.close()))
+                    + "  L " + EconomyCraft.formatMoney(Math.round(c.low()))
+                    + " H " + EconomyCraft.formatMoney(Math.round(c.high()))));
+        }
+        source.sendSuccess(() -> msg, false);
+        return 1;
+    }
+
+    private static int showBook(CommandSourceStack source, String stockId) {
+        StockManager stocks = StockManager.get(source.getServer());
+        if (stocks.get(stockId) == null) {
+            source.sendFailure(Component.literal("Unknown stock: " + stockId));
+            return 0;
+        }
+        long[][] asks = stocks.getDepth(stockId, false, 5);
+        long[][] bids = stocks.getDepth(stockId, true, 5);
+        StringBuilder sb = new StringBuilder("Order book for ").append(stockId).append(':');
+        for (int i = asks.length - 1; i >= 0; i--) {
+            sb.append("\n  ask ").append(EconomyCraft.formatMoney(asks[i][0])).append(" x").append(asks[i][1]);
+        }
+        for (long[] level : bids) {
+            sb.append("\n  bid ").append(EconomyCraft.formatMoney(level[0])).append(" x").append(level[1]);
+        }
+        if (asks.length == 0 && bids.length == 0) sb.append(" empty");
+        source.sendSuccess(() -> Component.literal(sb.toString()), false);
+        return 1;
+    }
 }
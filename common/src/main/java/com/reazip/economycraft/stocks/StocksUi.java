@@ -2,6 +2,8 @@ package com.reazip.economycraft.stocks;
 
 import com.reazip.economycraft.EconomyCraft;
 import com.reazip.economycraft.EconomyManager;
+import com.reazip.economycraft.util.ChangeBus;
+import com.reazip.economycraft.util.MenuFrame;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.MenuProvider;
 import net.minecraft.world.inventory.ClickType;
@@ -21,8 +23,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 public final class StocksUi {
+    private static final char[] SPARK_BARS = {'▁','▂','▃','▄','▅','▆','▇','█'};
+
     private StocksUi() {}
 
+    /** Bar character for {@code value} within {@code [min, max]}. */
+    static char sparkBar(double value, double min, double max) {
+        int level = (int) Math.floor(((value - min) / Math.max(1e-9, (max - min))) * 7.0);
+        return SPARK_BARS[Math.max(0, Math.min(7, level))];
+    }
+
     public static void open(ServerPlayer player) {
         EconomyManager manager = EconomyCraft.getManager(player.level().getServer());
         StockManager stocks = StockManager.get(player.level().getServer());
@@ -49,6 +59,9 @@ public final class StocksUi {
         private final StockManager stocks;
         private final ServerPlayer viewer;
         private final SimpleContainer container = new SimpleContainer(54);
+        private final MenuFrame frame = new MenuFrame(container);
+        private final List<StockEntry> shown = new ArrayList<>();
+        private final ChangeBus.Subscription subscription;
 
         StocksMenu(int id, Inventory inv, StockManager stocks, ServerPlayer viewer) {
             super(MenuType.GENERIC_9x6, id);
@@ -76,7 +89,7 @@ public final class StocksUi {
             }
 
             updatePage();
-            stocks.addListener(this::updatePage);
+            subscription = stocks.subscribe(this::onChange);
         }
 
         @Override
@@ -96,35 +109,54 @@ public final class StocksUi {
         @Override
         public void removed(Player player) {
             super.removed(player);
-            stocks.removeListener(this::updatePage);
+            subscription.close();
+        }
+
+        /**
+         * Each price tick names every stock, so only the shown stock slots are
+         * re-rendered and only those whose stack differs are re-synced; a reload
+         * re-renders the page.
+         */
+        private void onChange(ChangeBus.Change<String> change) {
+            if (change.all()) {
+                updatePage();
+                return;
+            }
+            for (int i = 0; i < shown.size(); i++) {
+                StockEntry s = shown.get(i);
+                if (!change.affects(s.id)) continue;
+                ItemStack next = render(s);
+                if (!ItemStack.matches(container.getItem(i), next)) container.setItem(i, next);
+            }
         }
 
         private void updatePage() {
             var all = new ArrayList<>(stocks.getAll());
-            container.clearContent();
+            shown.clear();
             for (int i = 0; i < Math.min(45, all.size()); i++) {
                 StockEntry s = all.get(i);
-                ItemStack it = new ItemStack(Items.PAPER);
-                it.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME, Component.literal(s.name));
-                List<Component> lore = new ArrayList<>();
-                lore.add(Component.literal("Price: " + EconomyCraft.formatMoney(Math.round(s.price))));
-                // sparkline
-                double[] h = s.snapshotHistory();
-                if (h.length > 0) {
-                    StringBuilder sb = new StringBuilder();
-                    double min = h[0], max = h[0];
-                    for (double d : h) { if (d < min) min = d; if (d > max) max = d; }
-                    for (double d : h) {
-                        int level = (int) Math.floor(((d - min) / Math.max(1e-9, (max - min))) * 7.0);
-                        level = Math.max(0, Math.min(7, level));
-                        char[] bars = new char[]{'▁','▂','▃','▄','▅','▆','▇','█'};
-                        sb.append(bars[level]);
-                    }
-                    lore.add(Component.literal("History: " + sb.toString()));
-                }
-                it.set(net.minecraft.core.component.DataComponents.LORE, new net.minecraft.world.item.component.ItemLore(lore));
-                container.setItem(i, it);
+                shown.add(s);
+                frame.set(i, render(s));
+            }
+            frame.commit();
+        }
+
+        private static ItemStack render(StockEntry s) {
+            ItemStack it = new ItemStack(Items.PAPER);
+            it.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME, Component.literal(s.name));
+            List<Component> lore = new ArrayList<>();
+            lore.add(Component.literal("Price: " + EconomyCraft.formatMoney(Math.round(s.price))));
+            // sparkline
+            double[] h = s.snapshotHistory();
+            if (h.length > 0) {
+                StringBuilder sb = new StringBuilder();
+                double min = h[0], max = h[0];
+                for (double d : h) { if (d < min) min = d; if (d > max) max = d; }
+                for (double d : h) sb.append(sparkBar(d, min, max));
+                lore.add(Component.literal("History: " + sb.toString()));
             }
+            it.set(net.minecraft.core.component.DataComponents.LORE, new net.minecraft.world.item.component.ItemLore(lore));
+            return it;
         }
 
         @Override public boolean stillValid(Player pPlayer) { return true; }
@@ -173,6 +205,13 @@ public final class StocksUi {
             sellAll.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME, Component.literal("Sell ALL").withStyle(s -> s.withItalic(false).withColor(ChatFormatting.DARK_RED)));
             container.setItem(7, sellAll);
 
+            ItemStack chart = new ItemStack(Items.CLOCK);
+            chart.set(net.minecraft.core.component.DataComponents.CUSTOM_NAME, Component.literal("Price Chart").withStyle(s -> s.withItalic(false).withColor(ChatFormatting.AQUA)));
+            List<Component> chartLore = new ArrayList<>();
+            chartLore.add(Component.literal("Show recent 1m candles in chat").withStyle(s -> s.withItalic(false).withColor(ChatFormatting.GRAY)));
+            chart.set(net.minecraft.core.component.DataComponents.LORE, new net.minecraft.world.item.component.ItemLore(chartLore));
+            container.setItem(8, chart);
+
             for (int i = 0; i < 9; i++) {
                 this.addSlot(new Slot(container, i, 8 + i * 18, 20) {
                     @Override public boolean mayPickup(Player player) { return false; }
@@ -200,6 +239,11 @@ public final class StocksUi {
                 if (slot == 5) { attemptSell(sp, 1); return; }
                 if (slot == 6) { attemptSell(sp, 10); return; }
                 if (slot == 7) { attemptSellAll(sp); return; }
+                if (slot == 8) {
+                    sp.closeContainer();
+                    StocksCommand.sendChart(sp.createCommandSourceStack(), stock.id, PriceHistory.Resolution.MINUTE);
+                    return;
+                }
             }
             super.clicked(slot, dragType, type, player);
         }
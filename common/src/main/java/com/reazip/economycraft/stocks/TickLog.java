@@ -0,0 +1,297 @@
+package com.reazip.economycraft.stocks;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only tick series for one stock, stored as memory-mapped segment
+ * files of fixed 16-byte records (epoch millis, price).
+ * <p>
+ * Segments are preallocated to {@link #SEGMENT_RECORDS} records and named by
+ * sequence number. Only the newest segment is written; when it fills, a new
+ * one is started and retention drops whole segments from the old end. A
+ * record whose time is 0 has not been written yet, which is how the fill level
+ * of the newest segment is found again after a restart. Older segments are
+ * mapped read-only the first time a query reaches them.
+ * <p>
+ * Queries return read-only slices of the mappings rather than copies.
+ * Records below a segment's count never change, so a slice stays valid after
+ * the caller's lock is released.
+ * <p>
+ * Durability: a full segment is forced to disk when the next one is started,
+ * and {@link #force()} flushes the newest one. Ticks written since the last
+ * force survive a crash of the server process, because they are already in the
+ * OS page cache, but may be lost if the machine itself goes down.
+ */
+final class TickLog {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    static final int RECORD_BYTES = 16;
+    /** 65,536 records, 1 MiB per segment. */
+    static final int SEGMENT_RECORDS = 1 << 16;
+
+    private final Path dir;
+    private final long retentionMillis;
+    private final int maxSegments;
+    private final List<Segment> segments = new ArrayList<>();
+    // retired segments whose delete failed, typically because a mapping was still open (Windows)
+    private final List<Path> pendingDeletes = new ArrayList<>();
+
+    private static final class Segment {
+        final Path file;
+        final int seq;
+        final int capacity;
+        int count;
+        long firstTime;
+        long lastTime;
+        MappedByteBuffer map;
+
+        Segment(Path file, int seq, int capacity) {
+            this.file = file;
+            this.seq = seq;
+            this.capacity = capacity;
+        }
+
+        long time(int i) {
+            return map.getLong(i * RECORD_BYTES);
+        }
+
+        /** Read-only view of records {@code [from, to)}. */
+        ByteBuffer slice(int from, int to) {
+            return map.slice(from * RECORD_BYTES, (to - from) * RECORD_BYTES).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * @param retentionMillis segments whose newest tick is older than this are deleted; 0 keeps them
+     * @param maxSegments     segments kept per stock, oldest deleted first; 0 for no limit
+     */
+    TickLog(Path dir, long retentionMillis, int maxSegments) throws IOException {
+        this.dir = dir;
+        this.retentionMillis = retentionMillis;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(dir);
+        List<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "ticks-*.seg")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    int seq = Integer.parseInt(name.substring(6, name.length() - 4));
+                    found.add(new Segment(file, seq, (int) (Files.size(file) / RECORD_BYTES)));
+                } catch (NumberFormatException ex) {
+                    LOGGER.warn("Ignoring unexpected tick segment {}", file);
+                }
+            }
+        }
+        found.sort((a, b) -> Integer.compare(a.seq, b.seq));
+        for (int i = 0; i < found.size(); i++) {
+            Segment s = found.get(i);
+            if (s.capacity == 0) {
+                Files.deleteIfExists(s.file);
+                continue;
+            }
+            if (i == found.size() - 1) {
+                s.map = map(s.file, s.capacity, true);
+                s.count = firstUnwritten(s);
+            } else {
+                s.count = s.capacity; // a segment is only rolled over once it is full
+            }
+            if (s.count > 0) {
+                s.firstTime = readTime(s, 0);
+                s.lastTime = readTime(s, s.count - 1);
+            }
+            segments.add(s);
+        }
+        applyRetention(System.currentTimeMillis());
+    }
+
+    long lastTime() {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment s = segments.get(i);
+            if (s.count > 0) return s.lastTime;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /** Appends one tick; {@code time} must be positive and not older than {@link #lastTime()}. */
+    void append(long time, double price) throws IOException {
+        Segment s = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (s == null || s.count == s.capacity) s = roll(s == null ? 0 : s.seq + 1, time);
+        int offset = s.count * RECORD_BYTES;
+        // price first: a non-zero time marks the record as written
+        s.map.putDouble(offset + 8, price);
+        s.map.putLong(offset, time);
+        if (s.count == 0) s.firstTime = time;
+        s.lastTime = time;
+        s.count++;
+    }
+
+    /** The newest {@code n} records as read-only slices, oldest first. */
+    List<ByteBuffer> last(int n) throws IOException {
+        ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        int remaining = n;
+        for (int i = segments.size() - 1; i >= 0 && remaining > 0; i--) {
+            Segment s = segments.get(i);
+            if (s.count == 0) continue;
+            int from = Math.max(0, s.count - remaining);
+            out.addFirst(mapped(s).slice(from, s.count));
+            remaining -= s.count - from;
+        }
+        return new ArrayList<>(out);
+    }
+
+    /** Records with {@code from <= time <= to} as read-only slices, oldest first. */
+    List<ByteBuffer> range(long from, long to) throws IOException {
+        List<ByteBuffer> out = new ArrayList<>();
+        for (Segment s : segments) {
+            if (s.count == 0 || s.lastTime < from || s.firstTime > to) continue;
+            mapped(s);
+            int lo = lowerBound(s, from);
+            int hi = to == Long.MAX_VALUE ? s.count : lowerBound(s, to + 1);
+            if (lo < hi) out.add(s.slice(lo, hi));
+        }
+        return out;
+    }
+
+    /** Writes the newest segment's dirty pages to disk; older segments were forced when they filled. */
+    void force() {
+        if (!segments.isEmpty()) {
+            MappedByteBuffer map = segments.get(segments.size() - 1).map;
+            if (map != null) map.force();
+        }
+    }
+
+    /** Copies records from a pre-segment {@code ticks.bin} file, then deletes it. */
+    void importLegacy(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(RECORD_BYTES * 4096);
+            long position = 0;
+            long last = lastTime();
+            int read;
+            while ((read = ch.read(buf, position)) > 0) {
+                position += read;
+                buf.flip();
+                while (buf.remaining() >= RECORD_BYTES) {
+                    long time = buf.getLong();
+                    double price = buf.getDouble();
+                    if (time > 0 && time >= last) {
+                        append(time, price);
+                        last = time;
+                    }
+                }
+                buf.compact();
+            }
+        }
+        force();
+        Files.delete(file);
+    }
+
+    private Segment roll(int seq, long now) throws IOException {
+        if (!segments.isEmpty()) {
+            // the full segment never changes again; flush it and remap it read-only on demand
+            Segment full = segments.get(segments.size() - 1);
+            if (full.map != null) full.map.force();
+            full.map = null;
+        }
+        Segment s = new Segment(dir.resolve(String.format("ticks-%08d.seg", seq)), seq, SEGMENT_RECORDS);
+        s.map = map(s.file, SEGMENT_RECORDS, true);
+        segments.add(s);
+        applyRetention(now);
+        return s;
+    }
+
+    /**
+     * Deletes whole segments past the age or count limit; never the newest one.
+     * A segment that cannot be deleted yet is retried on every later roll.
+     */
+    private void applyRetention(long now) {
+        pendingDeletes.removeIf(file -> delete(file, false));
+        while (segments.size() > 1) {
+            Segment oldest = segments.get(0);
+            boolean tooMany = maxSegments > 0 && segments.size() > maxSegments;
+            boolean tooOld = retentionMillis > 0 && oldest.count > 0 && oldest.lastTime < now - retentionMillis;
+            if (!tooMany && !tooOld) break;
+            segments.remove(0);
+            // drop our mapping so it can be unmapped; slices handed to callers may still hold it
+            oldest.map = null;
+            if (!delete(oldest.file, true)) pendingDeletes.add(oldest.file);
+        }
+    }
+
+    /** Returns false if the file still exists; only the first failure for a file is logged at warn. */
+    private static boolean delete(Path file, boolean firstAttempt) {
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException ex) {
+            if (firstAttempt) LOGGER.warn("Could not delete tick segment {}, will retry", file, ex);
+            else LOGGER.debug("Still could not delete tick segment {}", file, ex);
+            return false;
+        }
+    }
+
+    /** Retired segments still waiting to be deleted. */
+    int pendingDeletes() {
+        return pendingDeletes.size();
+    }
+
+    private Segment mapped(Segment s) throws IOException {
+        if (s.map == null) s.map = map(s.file, s.capacity, false);
+        return s;
+    }
+
+    /** Index of the first record with time 0; written records come first. */
+    private static int firstUnwritten(Segment s) {
+        int lo = 0, hi = s.capacity;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (s.time(mid) != 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int lowerBound(Segment s, long time) {
+        int lo = 0, hi = s.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (s.time(mid) < time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static long readTime(Segment s, int index) throws IOException {
+        if (s.map != null) return s.time(index);
+        try (FileChannel ch = FileChannel.open(s.file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(8);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, (long) index * RECORD_BYTES + buf.position()) < 0) break;
+            }
+            return buf.getLong(0);
+        }
+    }
+
+    private static MappedByteBuffer map(Path file, int records, boolean writable) throws IOException {
+        // the mapping outlives the channel, so no file handle stays open per segment
+        if (writable) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return ch.map(FileChannel.MapMode.READ_WRITE, 0, (long) records * RECORD_BYTES);
+            }
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, (long) records * RECORD_BYTES);
+        }
+    }
+}
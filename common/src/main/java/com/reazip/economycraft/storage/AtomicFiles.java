@@ -0,0 +1,174 @@
+package com.reazip.economycraft.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Crash-safe replacement for {@code Files.writeString} on data files.
+ * <p>
+ * A write goes to {@code <name>.tmp}, is forced to disk and then renamed over
+ * the target in a single atomic move, so the target is always either the old
+ * or the new content and never missing. Older backups are rotated into
+ * {@code <name>.2 .. <name>.N} first and {@code <name>.1} becomes a hard link
+ * to (or copy of) the current target. Reads validate the target and fall back
+ * to the newest readable generation.
+ */
+public final class AtomicFiles {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson GSON = new Gson();
+
+    /** Test hook run after each step of {@link #write}; throwing simulates a crash there. */
+    static volatile Consumer<String> afterStep;
+
+    /** Backup generations kept next to each data file. */
+    public static final int GENERATIONS = 3;
+
+    /** Parses and validates file contents; throwing marks the file unreadable. */
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(byte[] data) throws Exception;
+    }
+
+    private AtomicFiles() {}
+
+    public static void write(Path target, String content) throws IOException {
+        write(target, content.getBytes(StandardCharsets.UTF_8), GENERATIONS);
+    }
+
+    public static void write(Path target, String content, int generations) throws IOException {
+        write(target, content.getBytes(StandardCharsets.UTF_8), generations);
+    }
+
+    public static void write(Path target, byte[] data, int generations) throws IOException {
+        Path tmp = sibling(target, ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(data);
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+
+        step("written");
+
+        if (generations > 0 && Files.exists(target)) {
+            Files.deleteIfExists(generation(target, generations));
+            for (int i = generations - 1; i >= 1; i--) {
+                Path from = generation(target, i);
+                if (Files.exists(from)) move(from, generation(target, i + 1));
+            }
+            // the target itself stays in place until the final rename replaces it
+            backup(target, generation(target, 1));
+            step("backed-up");
+        }
+        move(tmp, target);
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Reads {@code target} with {@code reader}, falling back to older
+     * generations if it is missing or fails validation. Returns null if no
+     * readable copy exists.
+     */
+    public static <T> T read(Path target, Reader<T> reader) {
+        for (int i = 0; i <= GENERATIONS; i++) {
+            Path source = i == 0 ? target : generation(target, i);
+            if (Files.notExists(source)) continue;
+            try {
+                T value = reader.read(Files.readAllBytes(source));
+                if (value == null) throw new IOException("empty");
+                if (i > 0) {
+                    LOGGER.warn("[EconomyCraft] {} is missing or unreadable, loaded backup {}", target, source);
+                }
+                return value;
+            } catch (Exception e) {
+                LOGGER.error("[EconomyCraft] Failed to read {}", source, e);
+            }
+        }
+        return null;
+    }
+
+    /** {@link #read} for files holding a JSON object. */
+    public static JsonObject readJson(Path target) {
+        return read(target, data -> GSON.fromJson(new String(data, StandardCharsets.UTF_8), JsonObject.class));
+    }
+
+    /** True if the target or any backup generation exists. */
+    public static boolean exists(Path target) {
+        for (int i = 0; i <= GENERATIONS; i++) {
+            if (Files.exists(i == 0 ? target : generation(target, i))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Renames {@code target} and its backups to {@code <name><suffix>} and
+     * that name's generations, replacing any set retired under it before, so
+     * {@link #exists} no longer sees a stale backup of the old file.
+     */
+    public static void retire(Path target, String suffix) throws IOException {
+        Path retired = sibling(target, suffix);
+        for (int i = 0; i <= GENERATIONS; i++) {
+            Path from = i == 0 ? target : generation(target, i);
+            Path to = i == 0 ? retired : generation(retired, i);
+            if (Files.exists(from)) move(from, to);
+            else Files.deleteIfExists(to);
+        }
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    public static Path generation(Path target, int n) {
+        return sibling(target, "." + n);
+    }
+
+    // =====================================================================
+    // === Helpers =========================================================
+    // =====================================================================
+
+    private static Path sibling(Path target, String suffix) {
+        return target.resolveSibling(target.getFileName() + suffix);
+    }
+
+    private static void step(String name) {
+        Consumer<String> hook = afterStep;
+        if (hook != null) hook.accept(name);
+    }
+
+    /** Links {@code to} to the current contents of {@code from}, copying where links are unsupported. */
+    private static void backup(Path from, Path to) throws IOException {
+        Files.deleteIfExists(to);
+        try {
+            Files.createLink(to, from);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Persists the renames; not supported on every platform, so failures are ignored. */
+    private static void forceDirectory(Path dir) {
+        if (dir == null) return;
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException | UnsupportedOperationException ignored) {}
+    }
+}
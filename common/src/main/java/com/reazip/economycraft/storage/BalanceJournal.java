@@ -0,0 +1,398 @@
+package com.reazip.economycraft.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.CRC32;
+
+/**
+ * Write-behind persistence for balances, daily claims and daily sell totals.
+ * <p>
+ * Mutations are encoded as fixed-width records into in-memory {@link Lane}s and
+ * appended to {@code balances.journal} in batches by a background writer. Each
+ * caller-side lock (one per ledger stripe) records into its own lane, so
+ * recording never contends across stripes; records for one account must always
+ * go through the same lane, which keeps them in order in the file.
+ * Once the journal grows past {@link #COMPACT_THRESHOLD_BYTES} the writer folds
+ * it into the JSON snapshots ({@code balances.json}, {@code daily.json},
+ * {@code daily_sells.json}) and truncates it. On startup the snapshots are read
+ * and the journal is replayed on top of them.
+ * <p>
+ * Records carry absolute values rather than deltas, so replaying a journal that
+ * was already folded into a snapshot (crash between snapshot and truncate) is
+ * harmless.
+ */
+public final class BalanceJournal {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson GSON = new Gson();
+
+    private static final byte TYPE_BALANCE = 1;
+    private static final byte TYPE_REMOVE = 2;
+    private static final byte TYPE_DAILY = 3;
+    private static final byte TYPE_DAILY_SELL = 4;
+
+    /** type + uuid + two payload longs + crc32. */
+    private static final int RECORD_BYTES = 1 + 16 + 8 + 8 + 4;
+    private static final int CRC_OFFSET = RECORD_BYTES - 4;
+
+    private static final long FLUSH_INTERVAL_MS = 250L;
+    private static final long COMPACT_THRESHOLD_BYTES = 4L * 1024 * 1024;
+
+    private final Path balancesFile;
+    private final Path dailyFile;
+    private final Path dailySellFile;
+    private final Path journalFile;
+
+    private final List<Lane> lanes = new CopyOnWriteArrayList<>();
+
+    // Owned by the writer thread once started.
+    private final Map<UUID, Long> balances = new HashMap<>();
+    private final Map<UUID, Long> lastDaily = new HashMap<>();
+    private final Map<UUID, long[]> dailySells = new HashMap<>();
+    private ByteBuffer backlog = ByteBuffer.allocate(RECORD_BYTES * 256);
+    private FileChannel channel;
+
+    private ScheduledExecutorService writer;
+
+    /** Receives the persisted state during {@link #load(Sink)}. */
+    public interface Sink {
+        void balance(UUID player, long balance);
+
+        void daily(UUID player, long day);
+
+        void dailySell(UUID player, long day, long amount);
+    }
+
+    public BalanceJournal(Path dataDir) {
+        this.balancesFile = dataDir.resolve("balances.json");
+        this.dailyFile = dataDir.resolve("daily.json");
+        this.dailySellFile = dataDir.resolve("daily_sells.json");
+        this.journalFile = dataDir.resolve("balances.journal");
+    }
+
+    // =====================================================================
+    // === Startup =========================================================
+    // =====================================================================
+
+    /**
+     * Reads the snapshots, replays the journal on top of them and hands the
+     * resulting state to {@code sink}. Must be called before {@link #start()}.
+     */
+    public void load(Sink sink) {
+        loadSnapshots();
+        int replayed = replayJournal();
+        if (replayed > 0) {
+            LOGGER.info("[EconomyCraft] Replayed {} balance journal records from {}", replayed, journalFile);
+        }
+
+        balances.forEach(sink::balance);
+        lastDaily.forEach(sink::daily);
+        dailySells.forEach((id, d) -> sink.dailySell(id, d[0], d[1]));
+    }
+
+    public void start() {
+        if (writer != null) return;
+        try {
+            channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.size() > 0) {
+                // Fold whatever was replayed (and drop a torn tail) before appending.
+                compact();
+            }
+        } catch (IOException e) {
+            LOGGER.error("[EconomyCraft] Failed to open balance journal {}", journalFile, e);
+        }
+
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "economycraft-balance-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::flushSafely, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void loadSnapshots() {
+        JsonObject root = AtomicFiles.readJson(balancesFile);
+        if (root != null) {
+            for (Map.Entry<String, JsonElement> e : root.entrySet()) {
+                try {
+                    // older files stored balances as doubles
+                    balances.put(UUID.fromString(e.getKey()), (long) e.getValue().getAsDouble());
+                } catch (RuntimeException ignored) {}
+            }
+        }
+
+        root = AtomicFiles.readJson(dailyFile);
+        if (root != null) {
+            for (Map.Entry<String, JsonElement> e : root.entrySet()) {
+                try {
+                    lastDaily.put(UUID.fromString(e.getKey()), e.getValue().getAsLong());
+                } catch (RuntimeException ignored) {}
+            }
+        }
+
+        root = AtomicFiles.readJson(dailySellFile);
+        if (root != null) {
+            for (Map.Entry<String, JsonElement> e : root.entrySet()) {
+                try {
+                    JsonObject o = e.getValue().getAsJsonObject();
+                    dailySells.put(UUID.fromString(e.getKey()),
+                            new long[]{o.get("day").getAsLong(), o.get("amount").getAsLong()});
+                } catch (RuntimeException ignored) {}
+            }
+        }
+    }
+
+    private int replayJournal() {
+        if (Files.notExists(journalFile)) return 0;
+
+        ByteBuffer buf;
+        try {
+            buf = ByteBuffer.wrap(Files.readAllBytes(journalFile));
+        } catch (IOException e) {
+            LOGGER.error("[EconomyCraft] Failed to read balance journal {}", journalFile, e);
+            return 0;
+        }
+
+        int count = 0;
+        CRC32 check = new CRC32();
+        while (buf.remaining() >= RECORD_BYTES) {
+            int start = buf.position();
+            check.reset();
+            check.update(buf.array(), start, CRC_OFFSET);
+            if ((int) check.getValue() != buf.getInt(start + CRC_OFFSET)) {
+                LOGGER.warn("[EconomyCraft] Balance journal {} has a corrupt record at offset {}; ignoring the rest",
+                        journalFile, start);
+                return count;
+            }
+            apply(buf);
+            count++;
+        }
+        if (buf.hasRemaining()) {
+            LOGGER.warn("[EconomyCraft] Balance journal {} ends with a partial record ({} bytes); ignoring it",
+                    journalFile, buf.remaining());
+        }
+        return count;
+    }
+
+    // =====================================================================
+    // === Recording =======================================================
+    // =====================================================================
+
+    /** Returns a new recording lane; every record for a given player must go through the same lane. */
+    public Lane newLane() {
+        Lane lane = new Lane();
+        lanes.add(lane);
+        return lane;
+    }
+
+    /**
+     * Record buffer for one caller-side lock. Its monitor is only shared with
+     * the writer while it drains the lane.
+     */
+    public static final class Lane {
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer pending = ByteBuffer.allocate(RECORD_BYTES * 16);
+
+        private Lane() {}
+
+        public void balance(UUID player, long balance) {
+            append(TYPE_BALANCE, player, balance, 0L);
+        }
+
+        public void remove(UUID player) {
+            append(TYPE_REMOVE, player, 0L, 0L);
+        }
+
+        public void daily(UUID player, long day) {
+            append(TYPE_DAILY, player, day, 0L);
+        }
+
+        public void dailySell(UUID player, long day, long amount) {
+            append(TYPE_DAILY_SELL, player, day, amount);
+        }
+
+        private synchronized void append(byte type, UUID player, long a, long b) {
+            if (pending.remaining() < RECORD_BYTES) {
+                pending = grow(pending, RECORD_BYTES);
+            }
+            int start = pending.position();
+            pending.put(type)
+                    .putLong(player.getMostSignificantBits())
+                    .putLong(player.getLeastSignificantBits())
+                    .putLong(a)
+                    .putLong(b);
+            crc.reset();
+            crc.update(pending.array(), start, CRC_OFFSET);
+            pending.putInt((int) crc.getValue());
+        }
+
+        /** Moves this lane's records to the end of {@code out}; returns the possibly grown buffer. */
+        private synchronized ByteBuffer drainTo(ByteBuffer out) {
+            if (pending.position() == 0) return out;
+            pending.flip();
+            if (out.remaining() < pending.remaining()) {
+                out = grow(out, pending.remaining());
+            }
+            out.put(pending);
+            pending.clear();
+            return out;
+        }
+    }
+
+    // =====================================================================
+    // === Writer ==========================================================
+    // =====================================================================
+
+    /** Blocks until every record recorded so far is on disk. */
+    public void flush() {
+        runOnWriter(this::flushSafely);
+    }
+
+    /** Flushes, folds the journal into the snapshots and stops the writer. */
+    public void close() {
+        if (writer == null) return;
+        runOnWriter(() -> {
+            flushSafely();
+            try {
+                compact();
+            } catch (IOException e) {
+                LOGGER.error("[EconomyCraft] Failed to compact balance journal {}", journalFile, e);
+            }
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {}
+        channel = null;
+    }
+
+    private void runOnWriter(Runnable task) {
+        if (writer == null) return;
+        try {
+            writer.submit(task).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.error("[EconomyCraft] Balance journal task failed", e);
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flushPending();
+            if (channel != null && channel.size() >= COMPACT_THRESHOLD_BYTES) {
+                compact();
+            }
+        } catch (IOException e) {
+            LOGGER.error("[EconomyCraft] Failed to write balance journal {}", journalFile, e);
+        } catch (Exception e) {
+            LOGGER.error("[EconomyCraft] Unexpected balance journal failure", e);
+        }
+    }
+
+    private void flushPending() throws IOException {
+        // Lanes are drained one at a time; that is enough because a player's
+        // records all live in a single lane.
+        for (Lane lane : lanes) {
+            backlog = lane.drainTo(backlog);
+        }
+        if (backlog.position() == 0 || channel == null) return;
+
+        ByteBuffer out = backlog.duplicate().flip();
+        long before = channel.size();
+        try {
+            channel.position(before);
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // Keep the batch for the next round and drop whatever part of it made it out.
+            try { channel.truncate(before); } catch (IOException ignored) {}
+            throw e;
+        }
+
+        out.rewind();
+        while (out.hasRemaining()) {
+            apply(out);
+        }
+        backlog.clear();
+    }
+
+    private void compact() throws IOException {
+        JsonObject bal = new JsonObject();
+        balances.forEach((id, v) -> bal.addProperty(id.toString(), v));
+        JsonObject daily = new JsonObject();
+        lastDaily.forEach((id, v) -> daily.addProperty(id.toString(), v));
+        JsonObject sells = new JsonObject();
+        dailySells.forEach((id, d) -> {
+            JsonObject o = new JsonObject();
+            o.addProperty("day", d[0]);
+            o.addProperty("amount", d[1]);
+            sells.add(id.toString(), o);
+        });
+
+        AtomicFiles.write(balancesFile, GSON.toJson(bal));
+        AtomicFiles.write(dailyFile, GSON.toJson(daily));
+        AtomicFiles.write(dailySellFile, GSON.toJson(sells));
+
+        if (channel != null) {
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+    /** Applies the record at the buffer's position to the writer's view and advances past it. */
+    private void apply(ByteBuffer buf) {
+        byte type = buf.get();
+        UUID id = new UUID(buf.getLong(), buf.getLong());
+        long a = buf.getLong();
+        long b = buf.getLong();
+        buf.getInt();
+
+        switch (type) {
+            case TYPE_BALANCE -> balances.put(id, a);
+            case TYPE_REMOVE -> balances.remove(id);
+            case TYPE_DAILY -> lastDaily.put(id, a);
+            case TYPE_DAILY_SELL -> dailySells.put(id, new long[]{a, b});
+            default -> LOGGER.warn("[EconomyCraft] Unknown balance journal record type {}", type);
+        }
+    }
+
+    // =====================================================================
+    // === Helpers =========================================================
+    // =====================================================================
+
+    private static ByteBuffer grow(ByteBuffer buf, int needed) {
+        int size = Math.max(buf.capacity() * 2, buf.position() + needed);
+        ByteBuffer bigger = ByteBuffer.allocate(size);
+        buf.flip();
+        bigger.put(buf);
+        return bigger;
+    }
+}
@@ -0,0 +1,100 @@
+package com.reazip.economycraft.storage;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.RegistryOps;
+import net.minecraft.world.item.ItemStack;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary layout for the shop and order data files: a gzip stream of
+ * a magic/version header followed by length-prefixed records. Item stacks are
+ * stored as NBT produced by {@code ItemStack.CODEC}, so they keep string item
+ * ids and stay readable across registry changes, unlike the network codec.
+ */
+public final class BinaryFormat {
+    private static final int MAGIC = 0x45434446; // "ECDF"
+
+    @FunctionalInterface
+    public interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private BinaryFormat() {}
+
+    public static byte[] write(int version, Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(bytes)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(version);
+            body.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Opens {@code data} and checks the header; fails on foreign or newer files. */
+    public static DataInputStream open(byte[] data, int maxVersion) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new ByteArrayInputStream(data))));
+        if (in.readInt() != MAGIC) throw new IOException("Not an EconomyCraft data file");
+        int version = in.readInt();
+        if (version < 1 || version > maxVersion) throw new IOException("Unsupported data version " + version);
+        return in;
+    }
+
+    public static void writeUuid(DataOutput out, UUID id) throws IOException {
+        out.writeBoolean(id != null);
+        if (id == null) return;
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    public static UUID readUuid(DataInput in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    public static void writeStack(DataOutput out, ItemStack stack, RegistryOps<Tag> ops) throws IOException {
+        Tag tag = stack == null || stack.isEmpty() ? null : ItemStack.CODEC.encodeStart(ops, stack).result().orElse(null);
+        if (!(tag instanceof CompoundTag compound)) {
+            out.writeBoolean(false);
+            return;
+        }
+        out.writeBoolean(true);
+        NbtIo.write(compound, out);
+    }
+
+    public static ItemStack readStack(DataInput in, RegistryOps<Tag> ops) throws IOException {
+        if (!in.readBoolean()) return ItemStack.EMPTY;
+        CompoundTag tag = NbtIo.read(in);
+        return ItemStack.CODEC.parse(ops, tag).result().orElse(ItemStack.EMPTY);
+    }
+
+    public static void writeDeliveries(DataOutput out, Map<UUID, List<ItemStack>> deliveries, RegistryOps<Tag> ops) throws IOException {
+        out.writeInt(deliveries.size());
+        for (Map.Entry<UUID, List<ItemStack>> e : deliveries.entrySet()) {
+            writeUuid(out, e.getKey());
+            out.writeInt(e.getValue().size());
+            for (ItemStack s : e.getValue()) writeStack(out, s, ops);
+        }
+    }
+
+    public static Map<UUID, List<ItemStack>> readDeliveries(DataInput in, RegistryOps<Tag> ops) throws IOException {
+        int players = in.readInt();
+        Map<UUID, List<ItemStack>> out = new HashMap<>();
+        for (int i = 0; i < players; i++) {
+            UUID id = readUuid(in);
+            int count = in.readInt();
+            List<ItemStack> list = new ArrayList<>(Math.min(count, 64));
+            for (int j = 0; j < count; j++) {
+                ItemStack stack = readStack(in, ops);
+                if (!stack.isEmpty()) list.add(stack);
+            }
+            if (id != null) out.put(id, list);
+        }
+        return out;
+    }
+}
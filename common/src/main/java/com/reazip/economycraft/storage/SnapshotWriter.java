@@ -0,0 +1,117 @@
+package com.reazip.economycraft.storage;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Debounced background saves for state owned by the server thread.
+ * <p>
+ * {@link #markDirty()} is cheap and may be called after every mutation. The
+ * first call of a burst schedules a save {@link #DEBOUNCE_MS} later; at that
+ * point the server thread captures one immutable snapshot and the writer
+ * thread encodes it and writes it with {@link AtomicFiles}. Mutations made
+ * after the capture schedule the next save.
+ */
+public final class SnapshotWriter<T> {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final long DEBOUNCE_MS = 1_000L;
+
+    private final Path file;
+    private final Supplier<T> capture;
+    private final Encoder<T> encoder;
+    private final Executor serverThread;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor writer;
+
+    /** Serializes a snapshot; runs on the writer thread. */
+    @FunctionalInterface
+    public interface Encoder<T> {
+        byte[] encode(T snapshot) throws Exception;
+    }
+
+    /**
+     * @param capture      copies the live state; only called on {@code serverThread}
+     * @param serverThread executor for the thread that owns the state
+     */
+    public SnapshotWriter(Path file, Supplier<T> capture, Encoder<T> encoder, Executor serverThread) {
+        this.file = file;
+        this.capture = capture;
+        this.encoder = encoder;
+        this.serverThread = serverThread;
+        this.writer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "economycraft-save-" + file.getFileName());
+            t.setDaemon(true);
+            return t;
+        });
+        this.writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Reads this writer's file with {@code reader}. If no copy of it exists but
+     * {@code legacy} (the same state in another format) does, that is read with
+     * {@code legacyReader} instead, written out in this writer's format, and
+     * then retired together with its backups as {@code <legacy>.migrated}.
+     * Returns null if nothing readable exists.
+     */
+    public T load(AtomicFiles.Reader<T> reader, Path legacy, AtomicFiles.Reader<T> legacyReader) {
+        if (AtomicFiles.exists(file) || !AtomicFiles.exists(legacy)) return AtomicFiles.read(file, reader);
+        T loaded = AtomicFiles.read(legacy, legacyReader);
+        if (loaded == null) return null;
+        try {
+            AtomicFiles.write(file, encoder.encode(loaded), AtomicFiles.GENERATIONS);
+            AtomicFiles.retire(legacy, ".migrated");
+            LOGGER.info("[EconomyCraft] Migrated {} to {}", legacy, file);
+        } catch (Exception e) {
+            LOGGER.error("[EconomyCraft] Failed to migrate {} to {}", legacy, file, e);
+        }
+        return loaded;
+    }
+
+    public void markDirty() {
+        if (dirty.compareAndSet(false, true) && !writer.isShutdown()) {
+            writer.schedule(() -> serverThread.execute(this::captureAndSubmit), DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Captures any pending change now, waits for all writes and stops the writer. Server thread only. */
+    public void close() {
+        if (dirty.getAndSet(false)) {
+            T snapshot = capture.get();
+            writer.execute(() -> write(snapshot));
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.error("[EconomyCraft] Timed out saving {}", file);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void captureAndSubmit() {
+        if (!dirty.getAndSet(false)) return;
+        T snapshot = capture.get();
+        try {
+            writer.execute(() -> write(snapshot));
+        } catch (RejectedExecutionException e) {
+            write(snapshot);
+        }
+    }
+
+    private void write(T snapshot) {
+        try {
+            AtomicFiles.write(file, encoder.encode(snapshot), AtomicFiles.GENERATIONS);
+        } catch (Exception e) {
+            LOGGER.error("[EconomyCraft] Failed to save {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.reazip.economycraft.util;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Change notifications for a manager's keyed state (listing ids, stock ids).
+ * <p>
+ * Mutations call {@link #changed} and return immediately; the keys pile up
+ * until the owner calls {@link #flush()} once per server tick, which hands
+ * every subscriber a single {@link Change} with all keys touched since the
+ * last flush. A burst of edits in one tick therefore costs one refresh.
+ */
+public final class ChangeBus<K> {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private final String name;
+    private final List<Sub> subscribers = new CopyOnWriteArrayList<>();
+    private Set<K> pending = new LinkedHashSet<>();
+    private boolean pendingAll;
+
+    /** Keys changed since the previous delivery; {@code all} means "reload everything". */
+    public record Change<K>(Set<K> keys, boolean all) {
+        public boolean affects(K key) {
+            return all || keys.contains(key);
+        }
+    }
+
+    /** Handle returned by {@link #subscribe}; closing it is idempotent. */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final class Sub implements Subscription {
+        final Consumer<Change<K>> listener;
+
+        Sub(Consumer<Change<K>> listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void close() {
+            subscribers.remove(this);
+        }
+    }
+
+    /** @param name used in log messages only */
+    public ChangeBus(String name) {
+        this.name = name;
+    }
+
+    public Subscription subscribe(Consumer<Change<K>> listener) {
+        Sub sub = new Sub(listener);
+        subscribers.add(sub);
+        return sub;
+    }
+
+    public synchronized void changed(K key) {
+        if (!pendingAll) pending.add(key);
+    }
+
+    public synchronized void changedAll() {
+        pendingAll = true;
+        pending.clear();
+    }
+
+    /** Delivers pending changes to all subscribers; server thread only. */
+    public void flush() {
+        Change<K> change;
+        synchronized (this) {
+            if (!pendingAll && pending.isEmpty()) return;
+            change = new Change<>(pendingAll ? Set.of() : Collections.unmodifiableSet(pending), pendingAll);
+            pending = new LinkedHashSet<>();
+            pendingAll = false;
+        }
+        for (Sub sub : subscribers) {
+            try {
+                sub.listener.accept(change);
+            } catch (RuntimeException e) {
+                LOGGER.error("[EconomyCraft] {} listener failed", name, e);
+            }
+        }
+    }
+}
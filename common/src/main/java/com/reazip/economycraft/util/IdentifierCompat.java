@@ -9,24 +9,51 @@ import org.slf4j.Logger;
 
 import com.mojang.logging.LogUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Optional;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Version-independent access to Minecraft identifiers. The members to use are
+ * discovered reflectively once, then bound to {@code static final}
+ * {@link MethodHandle}s with erased signatures, so calls go through
+ * {@code invokeExact} and can be inlined by the JIT like direct calls.
+ * <p>
+ * {@link Id}s are pooled by namespace, then path, so looking up an existing id
+ * neither builds a {@code "namespace:path"} string nor hashes one; the
+ * component strings usually come from the game and have their hash cached.
+ */
 public final class IdentifierCompat {
     private static final Logger LOGGER = LogUtils.getLogger();
     private static final Class<?> ID_CLASS;
-    private static final Constructor<?> ID_CONSTRUCTOR_TWO;
-    private static final Constructor<?> ID_CONSTRUCTOR_ONE;
-    private static final Method ID_FACTORY_ONE;
-    private static final Method ID_FACTORY_TWO;
-    private static final Method REGISTRY_CONTAINS_KEY;
-    private static final Method REGISTRY_GET_OPTIONAL;
-    private static final Method RESOURCE_KEY_CREATE;
-    private static final Method RESOURCE_KEY_IDENTIFIER;
-    private static final Method HOLDER_VALUE;
-    private static final Method EITHER_LEFT;
-    private static final Method EITHER_RIGHT;
+    /** (String namespace, String path) -> identifier, whichever constructor/factory exists. */
+    private static final MethodHandle ID_FACTORY;
+    /** (Registry, identifier) -> boolean */
+    private static final MethodHandle REGISTRY_CONTAINS_KEY;
+    /** (Registry, identifier) -> Optional */
+    private static final MethodHandle REGISTRY_GET_OPTIONAL;
+    /** (ResourceKey registryKey, identifier) -> ResourceKey */
+    private static final MethodHandle RESOURCE_KEY_CREATE;
+    /** (ResourceKey) -> identifier */
+    private static final MethodHandle RESOURCE_KEY_IDENTIFIER;
+    /** (identifier) -> String, or null if the identifier class has no such accessor. */
+    private static final MethodHandle ID_NAMESPACE;
+    private static final MethodHandle ID_PATH;
+    private static final MethodHandle HOLDER_VALUE;
+    private static final MethodHandle EITHER_LEFT;
+    private static final MethodHandle EITHER_RIGHT;
+
+    private static final int MAX_POOLED_IDS = 16_384;
+    /** namespace -> path -> id */
+    private static final Map<String, Map<String, Id>> POOL = new ConcurrentHashMap<>();
+    private static final Map<String, Id> MINECRAFT_POOL = new ConcurrentHashMap<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
 
     static {
         Class<?> idClass = null;
@@ -38,6 +65,8 @@ public final class IdentifierCompat {
         Method registryGetOptional = null;
         Method resourceKeyCreate = null;
         Method resourceKeyIdentifier = null;
+        Method idNamespace = null;
+        Method idPath = null;
         Method holderValue = null;
         Method eitherLeft = null;
         Method eitherRight = null;
@@ -82,6 +111,8 @@ public final class IdentifierCompat {
         registryGetOptional = findRegistryMethod(Registry.class, Optional.class, idClass);
         resourceKeyCreate = findResourceKeyCreate(idClass);
         resourceKeyIdentifier = findResourceKeyIdentifier(idClass);
+        idNamespace = findStringAccessor(idClass, "getNamespace", "namespace");
+        idPath = findStringAccessor(idClass, "getPath", "path");
         holderValue = findHolderValue();
         Method[] eitherMethods = findEitherMethods();
         if (eitherMethods != null) {
@@ -89,18 +120,22 @@ public final class IdentifierCompat {
             eitherRight = eitherMethods[1];
         }
 
+        MethodType objectToObject = MethodType.methodType(Object.class, Object.class);
+        MethodType objectsToObject = MethodType.methodType(Object.class, Object.class, Object.class);
+
         ID_CLASS = idClass;
-        ID_CONSTRUCTOR_TWO = idConstructorTwo;
-        ID_CONSTRUCTOR_ONE = idConstructorOne;
-        ID_FACTORY_ONE = idFactoryOne;
-        ID_FACTORY_TWO = idFactoryTwo;
-        REGISTRY_CONTAINS_KEY = registryContainsKey;
-        REGISTRY_GET_OPTIONAL = registryGetOptional;
-        RESOURCE_KEY_CREATE = resourceKeyCreate;
-        RESOURCE_KEY_IDENTIFIER = resourceKeyIdentifier;
-        HOLDER_VALUE = holderValue;
-        EITHER_LEFT = eitherLeft;
-        EITHER_RIGHT = eitherRight;
+        ID_FACTORY = bindIdFactory(idConstructorTwo, idFactoryTwo, idConstructorOne, idFactoryOne);
+        REGISTRY_CONTAINS_KEY = bind(registryContainsKey, MethodType.methodType(boolean.class, Object.class, Object.class));
+        REGISTRY_GET_OPTIONAL = bind(registryGetOptional, MethodType.methodType(Optional.class, Object.class, Object.class));
+        RESOURCE_KEY_CREATE = bind(resourceKeyCreate, objectsToObject);
+        RESOURCE_KEY_IDENTIFIER = bind(resourceKeyIdentifier, objectToObject);
+        boolean hasAccessors = idNamespace != null && idPath != null;
+        ID_NAMESPACE = hasAccessors ? bind(idNamespace, MethodType.methodType(String.class, Object.class)) : null;
+        ID_PATH = hasAccessors ? bind(idPath, MethodType.methodType(String.class, Object.class)) : null;
+        POOL.put("minecraft", MINECRAFT_POOL);
+        HOLDER_VALUE = holderValue != null ? bind(holderValue, objectToObject) : null;
+        EITHER_LEFT = eitherLeft != null ? bind(eitherLeft, objectToObject) : null;
+        EITHER_RIGHT = eitherRight != null ? bind(eitherRight, objectToObject) : null;
     }
 
     private IdentifierCompat() {}
@@ -113,41 +148,60 @@ public final class IdentifierCompat {
         if (trimmed.isEmpty()) {
             return null;
         }
-        String namespace;
-        String path;
-        int idx = trimmed.indexOf(':');
-        if (idx >= 0) {
-            namespace = trimmed.substring(0, idx);
-            path = trimmed.substring(idx + 1);
-        } else {
-            namespace = "minecraft";
-            path = trimmed;
-        }
-        if (!isValidNamespace(namespace) || !isValidPath(path)) {
-            return null;
-        }
-        return new Id(construct(namespace, path), namespace, path);
+        return parseFromString(trimmed, null);
     }
 
     public static Id withDefaultNamespace(String path) {
+        if (path == null) {
+            return null;
+        }
+        Id pooled = MINECRAFT_POOL.get(path);
+        if (pooled != null) {
+            return pooled;
+        }
         if (!isValidPath(path)) {
             return null;
         }
-        return new Id(construct("minecraft", path), "minecraft", path);
+        return intern("minecraft", path, null);
     }
 
     public static Id fromNamespaceAndPath(String namespace, String path) {
+        if (namespace == null || path == null) {
+            return null;
+        }
+        Id pooled = pooled(namespace, path);
+        if (pooled != null) {
+            return pooled;
+        }
         if (!isValidNamespace(namespace) || !isValidPath(path)) {
             return null;
         }
-        return new Id(construct(namespace, path), namespace, path);
+        return intern(namespace, path, null);
     }
 
     public static Id wrap(Object value) {
         if (value == null) {
             return null;
         }
-        return parseFromString(value.toString(), value);
+        if (ID_NAMESPACE == null || !ID_CLASS.isInstance(value)) {
+            return parseFromString(value.toString(), value);
+        }
+        String namespace;
+        String path;
+        try {
+            namespace = (String) ID_NAMESPACE.invokeExact(value);
+            path = (String) ID_PATH.invokeExact(value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+        Id pooled = pooled(namespace, path);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (!isValidNamespace(namespace) || !isValidPath(path)) {
+            return null;
+        }
+        return intern(namespace, path, value);
     }
 
     @SuppressWarnings("unchecked")
@@ -159,15 +213,23 @@ public final class IdentifierCompat {
         if (id == null) {
             return false;
         }
-        return (boolean) invoke(REGISTRY_CONTAINS_KEY, registry, id.handle());
+        try {
+            return (boolean) REGISTRY_CONTAINS_KEY.invokeExact((Object) registry, id.handle());
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
     }
 
     public static <T> Optional<T> registryGetOptional(Registry<T> registry, Id id) {
         if (id == null) {
             return Optional.empty();
         }
-        @SuppressWarnings("unchecked")
-        Optional<Object> result = (Optional<Object>) invoke(REGISTRY_GET_OPTIONAL, registry, id.handle());
+        Optional<?> result;
+        try {
+            result = (Optional<?>) REGISTRY_GET_OPTIONAL.invokeExact((Object) registry, id.handle());
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
         if (result.isEmpty()) {
             return Optional.empty();
         }
@@ -191,26 +253,36 @@ public final class IdentifierCompat {
         if (id == null) {
             return null;
         }
-        @SuppressWarnings("unchecked")
-        ResourceKey<T> result = (ResourceKey<T>) invokeStatic(RESOURCE_KEY_CREATE, registryKey, id.handle());
-        return result;
+        try {
+            @SuppressWarnings("unchecked")
+            ResourceKey<T> result = (ResourceKey<T>) (Object) RESOURCE_KEY_CREATE.invokeExact((Object) registryKey, id.handle());
+            return result;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
     }
 
     public static Id fromResourceKey(ResourceKey<?> key) {
         if (key == null) {
             return null;
         }
-        Object value = invoke(RESOURCE_KEY_IDENTIFIER, key);
+        Object value;
+        try {
+            value = (Object) RESOURCE_KEY_IDENTIFIER.invokeExact((Object) key);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
         return wrap(value);
     }
 
+    /** Parses {@code raw}; {@code handle} is the existing identifier object, or null to construct one. */
     private static Id parseFromString(String raw, Object handle) {
         if (raw == null || raw.isBlank()) {
             return null;
         }
+        int idx = raw.indexOf(':');
         String namespace;
         String path;
-        int idx = raw.indexOf(':');
         if (idx >= 0) {
             namespace = raw.substring(0, idx);
             path = raw.substring(idx + 1);
@@ -218,30 +290,52 @@ public final class IdentifierCompat {
             namespace = "minecraft";
             path = raw;
         }
+        Id pooled = pooled(namespace, path);
+        if (pooled != null) {
+            return pooled;
+        }
         if (!isValidNamespace(namespace) || !isValidPath(path)) {
             return null;
         }
-        return new Id(handle, namespace, path);
+        return intern(namespace, path, handle);
+    }
+
+    private static Id pooled(String namespace, String path) {
+        Map<String, Id> byPath = POOL.get(namespace);
+        return byPath != null ? byPath.get(path) : null;
+    }
+
+    /**
+     * Returns the canonical {@link Id} for {@code namespace:path}, creating it
+     * on first use. Once the pool is full new ids are returned unpooled, which
+     * is still correct because {@link Id#equals} compares by value.
+     */
+    private static Id intern(String namespace, String path, Object handle) {
+        Map<String, Id> byPath = POOL.get(namespace);
+        Id pooled = byPath != null ? byPath.get(path) : null;
+        if (pooled != null) {
+            return pooled;
+        }
+        Id id = new Id(handle != null ? handle : construct(namespace, path), namespace, path);
+        if (POOLED.get() >= MAX_POOLED_IDS) {
+            return id;
+        }
+        if (byPath == null) {
+            byPath = POOL.computeIfAbsent(namespace, k -> new ConcurrentHashMap<>());
+        }
+        Id raced = byPath.putIfAbsent(path, id);
+        if (raced != null) {
+            return raced;
+        }
+        POOLED.incrementAndGet();
+        return id;
     }
 
     private static Object construct(String namespace, String path) {
-        String combined = namespace + ":" + path;
         try {
-            if (ID_CONSTRUCTOR_TWO != null) {
-                return ID_CONSTRUCTOR_TWO.newInstance(namespace, path);
-            }
-            if (ID_FACTORY_TWO != null) {
-                return ID_FACTORY_TWO.invoke(null, namespace, path);
-            }
-            if (ID_CONSTRUCTOR_ONE != null) {
-                return ID_CONSTRUCTOR_ONE.newInstance(combined);
-            }
-            if (ID_FACTORY_ONE != null) {
-                return ID_FACTORY_ONE.invoke(null, combined);
-            }
-            throw new IllegalStateException("Identifier constructor not found");
-        } catch (ReflectiveOperationException e) {
-            throw new IllegalStateException(e);
+            return (Object) ID_FACTORY.invokeExact(namespace, path);
+        } catch (Throwable t) {
+            throw rethrow(t);
         }
     }
 
@@ -271,12 +365,16 @@ public final class IdentifierCompat {
         return value != null && value.getClass().getName().equals("com.mojang.datafixers.util.Either");
     }
 
-    @SuppressWarnings("unchecked")
-    private static Optional<?> invokeEitherOptional(Method method, Object target) {
+    private static Optional<?> invokeEitherOptional(MethodHandle method, Object target) {
         if (method == null || target == null) {
             return null;
         }
-        Object result = invoke(method, target);
+        Object result;
+        try {
+            result = (Object) method.invokeExact(target);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
         if (result instanceof Optional<?> optional) {
             return optional;
         }
@@ -386,6 +484,20 @@ public final class IdentifierCompat {
         throw new ExceptionInInitializerError("ResourceKey identifier method not found");
     }
 
+    private static Method findStringAccessor(Class<?> type, String... names) {
+        for (String name : names) {
+            try {
+                Method method = type.getMethod(name);
+                if (method.getReturnType() == String.class && !java.lang.reflect.Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            } catch (NoSuchMethodException ignored) {
+                // try next name
+            }
+        }
+        return null;
+    }
+
     private static Method findHolderValue() {
         return findNoArgMethod(Holder.class, "value", "get");
     }
@@ -420,25 +532,61 @@ public final class IdentifierCompat {
         return sample;
     }
 
-    private static Object invokeStatic(Method method, Object... args) {
+    private static MethodHandle bind(Method method, MethodType type) {
         try {
-            return method.invoke(null, args);
-        } catch (ReflectiveOperationException e) {
-            throw new IllegalStateException(e);
+            return MethodHandles.lookup().unreflect(method).asType(type);
+        } catch (IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
         }
     }
 
-    private static Object invoke(Method method, Object target, Object... args) {
+    private static MethodHandle bindIdFactory(Constructor<?> constructorTwo, Method factoryTwo,
+                                              Constructor<?> constructorOne, Method factoryOne) {
+        MethodType type = MethodType.methodType(Object.class, String.class, String.class);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
         try {
-            return method.invoke(target, args);
+            if (constructorTwo != null) return lookup.unreflectConstructor(constructorTwo).asType(type);
+            if (factoryTwo != null) return lookup.unreflect(factoryTwo).asType(type);
+
+            MethodHandle single = constructorOne != null
+                    ? lookup.unreflectConstructor(constructorOne)
+                    : lookup.unreflect(factoryOne);
+            MethodHandle join = lookup.findStatic(IdentifierCompat.class, "join",
+                    MethodType.methodType(String.class, String.class, String.class));
+            return MethodHandles.collectArguments(single.asType(MethodType.methodType(Object.class, String.class)), 0, join);
         } catch (ReflectiveOperationException e) {
-            throw new IllegalStateException(e);
+            throw new ExceptionInInitializerError(e);
         }
     }
 
+    private static String join(String namespace, String path) {
+        return namespace + ":" + path;
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException e) return e;
+        if (t instanceof Error e) throw e;
+        return new IllegalStateException(t);
+    }
+
+    /**
+     * Identifier with its namespace and path. Instances are pooled, so equal
+     * ids are usually the same object; equality ignores {@code handle}, which
+     * is derived from the other two.
+     */
     public record Id(Object handle, String namespace, String path) {
         public String asString() {
             return namespace + ":" + path;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof Id other && namespace.equals(other.namespace) && path.equals(other.path));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * namespace.hashCode() + path.hashCode();
+        }
     }
 }
@@ -8,6 +8,9 @@ import net.minecraft.commands.arguments.GameProfileArgument;
 import net.minecraft.server.level.ServerPlayer;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -15,6 +18,11 @@ import java.util.stream.Collectors;
 
 public final class IdentityCompat {
     public record PlayerRef(UUID id, String name) {}
+
+    // GameProfile is a record with id()/name() in newer authlib and a class with getters in older ones.
+    private static final MethodHandle PROFILE_ID = bindProfileAccessor(UUID.class, "id", "getId");
+    private static final MethodHandle PROFILE_NAME = bindProfileAccessor(String.class, "name", "getName");
+
     private IdentityCompat() {}
 
     public static PlayerRef of(ServerPlayer p) {
@@ -27,30 +35,55 @@ public final class IdentityCompat {
 
     private static UUID getGameProfileId(GameProfile gp) {
         try {
-            Method m = gp.getClass().getMethod("id"); // record-style
-            return (UUID) m.invoke(gp);
-        } catch (Exception e1) {
-            try {
-                Method m = gp.getClass().getMethod("getId"); // getter-style
-                return (UUID) m.invoke(gp);
-            } catch (Exception e2) {
-                throw new IllegalStateException("Cannot access GameProfile ID", e2);
-            }
+            return (UUID) PROFILE_ID.invokeExact(gp);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Cannot access GameProfile ID", t);
         }
     }
 
     private static String getGameProfileName(GameProfile gp) {
         try {
-            Method m = gp.getClass().getMethod("name");
-            return (String) m.invoke(gp);
-        } catch (Exception e1) {
+            return (String) PROFILE_NAME.invokeExact(gp);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Cannot access GameProfile name", t);
+        }
+    }
+
+    /** GameProfile id, or null if it cannot be read. */
+    @Nullable
+    static UUID idOrNull(GameProfile gp) {
+        try {
+            return (UUID) PROFILE_ID.invokeExact(gp);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /** GameProfile name, or null if it cannot be read. */
+    @Nullable
+    static String nameOrNull(GameProfile gp) {
+        try {
+            return (String) PROFILE_NAME.invokeExact(gp);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * Binds the first existing no-arg accessor of {@code returnType} on
+     * GameProfile (record-style names first, then getters). If none exists the
+     * handle throws on use, matching the old per-call lookup failure.
+     */
+    private static MethodHandle bindProfileAccessor(Class<?> returnType, String... names) {
+        MethodType type = MethodType.methodType(returnType, GameProfile.class);
+        for (String name : names) {
             try {
-                Method m = gp.getClass().getMethod("getName");
-                return (String) m.invoke(gp);
-            } catch (Exception e2) {
-                throw new IllegalStateException("Cannot access GameProfile name", e2);
-            }
+                return MethodHandles.publicLookup().findVirtual(GameProfile.class, name, MethodType.methodType(returnType));
+            } catch (ReflectiveOperationException ignored) {}
         }
+        MethodHandle fail = MethodHandles.throwException(returnType, NoSuchMethodException.class);
+        fail = MethodHandles.insertArguments(fail, 0, new NoSuchMethodException("GameProfile." + Arrays.toString(names)));
+        return MethodHandles.dropArguments(fail, 0, GameProfile.class).asType(type);
     }
 
     private static boolean isNameAndId(Object o) {
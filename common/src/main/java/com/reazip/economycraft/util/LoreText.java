@@ -0,0 +1,54 @@
+package com.reazip.economycraft.util;
+
+import net.minecraft.ChatFormatting;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared building blocks for menu lore. Non-italic color styles and
+ * {@code "Label: "} prefixes are built once and reused, so a lore line costs
+ * one shallow copy of the label plus the value literal.
+ */
+public final class LoreText {
+    private static final int MAX_CACHED_LABELS = 256;
+    private static final Map<ChatFormatting, Style> STYLES = new EnumMap<>(ChatFormatting.class);
+    private static final Map<String, MutableComponent> LABELS = new ConcurrentHashMap<>();
+
+    static {
+        for (ChatFormatting f : ChatFormatting.values()) {
+            if (f.isColor()) STYLES.put(f, Style.EMPTY.withItalic(false).withColor(f));
+        }
+    }
+
+    private LoreText() {}
+
+    /** Non-italic style in {@code color}. */
+    public static Style plain(ChatFormatting color) {
+        Style style = STYLES.get(color);
+        return style != null ? style : Style.EMPTY.withItalic(false);
+    }
+
+    public static MutableComponent literal(String text, ChatFormatting color) {
+        return Component.literal(text).setStyle(plain(color));
+    }
+
+    /** {@code "label: value"} with the label and the value in their own colors. */
+    public static MutableComponent labeled(String label, ChatFormatting labelColor, String value, ChatFormatting valueColor) {
+        return label(label, labelColor).copy().append(literal(value, valueColor));
+    }
+
+    /** Cached prefix; callers must {@link MutableComponent#copy() copy} it before appending. */
+    private static MutableComponent label(String label, ChatFormatting color) {
+        String key = color.getChar() + label;
+        MutableComponent cached = LABELS.get(key);
+        if (cached != null) return cached;
+        MutableComponent built = literal(label + ": ", color);
+        if (LABELS.size() < MAX_CACHED_LABELS) LABELS.putIfAbsent(key, built);
+        return built;
+    }
+}
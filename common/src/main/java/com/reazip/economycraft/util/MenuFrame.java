@@ -0,0 +1,52 @@
+package com.reazip.economycraft.util;
+
+import net.minecraft.world.Container;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.Arrays;
+
+/**
+ * Next contents of a menu's display container. A refresh fills the frame with
+ * {@link #set}; {@link #commit()} then writes only the slots whose stack
+ * differs from what the container already holds. Unchanged slots keep their
+ * stack instance and are neither marked dirty nor re-synced to the client.
+ */
+public final class MenuFrame {
+    private final Container container;
+    private final ItemStack[] next;
+
+    public MenuFrame(Container container) {
+        this.container = container;
+        this.next = new ItemStack[container.getContainerSize()];
+        Arrays.fill(next, ItemStack.EMPTY);
+    }
+
+    public void set(int slot, ItemStack stack) {
+        next[slot] = stack == null ? ItemStack.EMPTY : stack;
+    }
+
+    public ItemStack get(int slot) {
+        return next[slot];
+    }
+
+    public int size() {
+        return next.length;
+    }
+
+    /**
+     * Applies the frame; slots that were not set are cleared. The frame is
+     * empty again afterwards. Returns the number of slots that changed.
+     */
+    public int commit() {
+        int changed = 0;
+        for (int i = 0; i < next.length; i++) {
+            ItemStack stack = next[i];
+            next[i] = ItemStack.EMPTY;
+            if (!ItemStack.matches(container.getItem(i), stack)) {
+                container.setItem(i, stack);
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,45 @@
+package com.reazip.economycraft.util;
+
+/**
+ * Formats money amounts as {@code $1.234.567}, the output previously produced
+ * by {@code NumberFormat.getInstance(Locale.GERMANY)}. Thread-safe: digits are
+ * written into a per-thread buffer, so a call allocates only its result.
+ */
+public final class MoneyFormat {
+    private static final char GROUP_SEPARATOR = '.';
+    // '$', sign, 19 digits and 6 separators for Long.MIN_VALUE
+    private static final int MAX_CHARS = 27;
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[MAX_CHARS]);
+
+    private MoneyFormat() {}
+
+    public static String format(long amount) {
+        char[] buf = BUFFER.get();
+        int start = fill(buf, amount);
+        return new String(buf, start, buf.length - start);
+    }
+
+    /** Appends the formatted amount without creating an intermediate String. */
+    public static StringBuilder append(StringBuilder out, long amount) {
+        char[] buf = BUFFER.get();
+        int start = fill(buf, amount);
+        return out.append(buf, start, buf.length - start);
+    }
+
+    /** Writes the amount right-aligned into {@code buf} and returns its start index. */
+    private static int fill(char[] buf, long amount) {
+        int pos = buf.length;
+        // Work on the negative value so Long.MIN_VALUE needs no special case.
+        long n = amount < 0 ? amount : -amount;
+        int digits = 0;
+        do {
+            if (digits > 0 && digits % 3 == 0) buf[--pos] = GROUP_SEPARATOR;
+            buf[--pos] = (char) ('0' - (int) (n % 10));
+            n /= 10;
+            digits++;
+        } while (n != 0);
+        if (amount < 0) buf[--pos] = '-';
+        buf[--pos] = '$';
+        return pos;
+    }
+}
@@ -6,43 +6,98 @@ import com.mojang.authlib.GameProfile;
 import com.mojang.authlib.properties.PropertyMap;
 import net.minecraft.world.item.component.ResolvableProfile;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.RecordComponent;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds {@link ResolvableProfile} components across Minecraft versions. The
+ * factories and constructors available in the running version are looked up
+ * once and bound to {@link MethodHandle}s; absent ones stay null and are
+ * skipped. Head components for player UUIDs are cached, see {@link #head}.
+ */
 public final class ProfileComponentCompat {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
     private static final boolean IS_ABSTRACT = Modifier.isAbstract(ResolvableProfile.class.getModifiers());
-    private static final Method CREATE_RESOLVED = findResolvedFactory();
-    private static final Method CREATE_UNRESOLVED_STRING = findMethod("createUnresolved", String.class);
-    private static final Method CREATE_UNRESOLVED_UUID = findMethod("createUnresolved", UUID.class);
-    private static final Constructor<ResolvableProfile> CTOR_GAME_PROFILE = findConstructor(GameProfile.class);
-    private static final Constructor<ResolvableProfile> CTOR_FULL = findConstructor(Optional.class, Optional.class, PropertyMap.class);
-    private static final Constructor<ResolvableProfile> CTOR_FULL_WITH_PROFILE = findConstructor(
+    private static final MethodHandle CREATE_RESOLVED = findResolvedFactory();
+    private static final MethodHandle CREATE_UNRESOLVED_STRING = findFactory("createUnresolved", String.class);
+    private static final MethodHandle CREATE_UNRESOLVED_UUID = findFactory("createUnresolved", UUID.class);
+    private static final MethodHandle CTOR_GAME_PROFILE = findConstructor(GameProfile.class);
+    private static final MethodHandle CTOR_FULL = findConstructor(Optional.class, Optional.class, PropertyMap.class);
+    private static final MethodHandle CTOR_FULL_WITH_PROFILE = findConstructor(
             Optional.class, Optional.class, PropertyMap.class, GameProfile.class);
-    private static final Constructor<PropertyMap> PROPERTYMAP_NOARG = findPropertyMapConstructor();
-    private static final Constructor<PropertyMap> PROPERTYMAP_MULTIMAP = findPropertyMapConstructor(Multimap.class);
+    private static final MethodHandle PROPERTYMAP_NOARG = findPropertyMapConstructor();
+    private static final MethodHandle PROPERTYMAP_MULTIMAP = findPropertyMapConstructor(Multimap.class);
+    private static final MethodHandle PROFILE_PROPERTIES = findProfileProperties();
+
+    private static final int MAX_CACHED_HEADS = 1024;
+    private static final Map<UUID, CachedHead> HEADS = new ConcurrentHashMap<>();
+
+    /** {@code source} is the GameProfile (compared by identity) or the name the profile was built from. */
+    private record CachedHead(Object source, Optional<ResolvableProfile> profile) {}
 
     private ProfileComponentCompat() {}
 
+    // =====================================================================
+    // === Cached head components ==========================================
+    // =====================================================================
+
+    /**
+     * {@link #tryResolvedOrUnresolved} cached per player UUID. A player keeps
+     * the same GameProfile instance while online, so the cached component is
+     * reused until they reconnect.
+     */
+    public static Optional<ResolvableProfile> head(GameProfile profile) {
+        UUID id = IdentityCompat.idOrNull(profile);
+        if (id == null) return tryResolvedOrUnresolved(profile);
+        CachedHead cached = HEADS.get(id);
+        if (cached != null && cached.source() == profile) return cached.profile();
+        return cache(id, profile, tryResolvedOrUnresolved(profile));
+    }
+
+    /** {@link #tryUnresolved} for an offline player, cached per UUID while the name stays the same. */
+    public static Optional<ResolvableProfile> head(UUID id, String nameOrId) {
+        String value = nameOrId == null || nameOrId.isBlank() ? id.toString() : nameOrId;
+        CachedHead cached = HEADS.get(id);
+        if (cached != null && value.equals(cached.source())) return cached.profile();
+        return cache(id, value, tryUnresolved(value));
+    }
+
+    private static Optional<ResolvableProfile> cache(UUID id, Object source, Optional<ResolvableProfile> profile) {
+        if (HEADS.size() >= MAX_CACHED_HEADS) HEADS.clear();
+        HEADS.put(id, new CachedHead(source, profile));
+        return profile;
+    }
+
+    // =====================================================================
+    // === Factories =======================================================
+    // =====================================================================
+
     public static ResolvableProfile resolved(GameProfile profile) {
-        if (CREATE_RESOLVED != null) {
-            return invokeStatic(CREATE_RESOLVED, profile);
-        }
-        if (!IS_ABSTRACT) {
-            if (CTOR_GAME_PROFILE != null) {
-                return newInstance(CTOR_GAME_PROFILE, profile);
+        try {
+            if (CREATE_RESOLVED != null) {
+                return (ResolvableProfile) CREATE_RESOLVED.invokeExact(profile);
             }
-            if (CTOR_FULL_WITH_PROFILE != null) {
-                return newInstance(CTOR_FULL_WITH_PROFILE,
-                        Optional.ofNullable(extractName(profile)),
-                        Optional.ofNullable(extractId(profile)),
-                        extractProperties(profile),
-                        profile);
+            if (!IS_ABSTRACT) {
+                if (CTOR_GAME_PROFILE != null) {
+                    return (ResolvableProfile) CTOR_GAME_PROFILE.invokeExact(profile);
+                }
+                if (CTOR_FULL_WITH_PROFILE != null) {
+                    return (ResolvableProfile) CTOR_FULL_WITH_PROFILE.invokeExact(
+                            Optional.ofNullable(extractName(profile)),
+                            Optional.ofNullable(extractId(profile)),
+                            extractProperties(profile),
+                            profile);
+                }
             }
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to create resolved ResolvableProfile", t);
         }
         throw new IllegalStateException("No compatible ResolvableProfile factory found for resolved profile");
     }
@@ -75,136 +130,79 @@ public final class ProfileComponentCompat {
 
     public static ResolvableProfile unresolved(String nameOrId) {
         String value = nameOrId == null || nameOrId.isBlank() ? "" : nameOrId;
-        if (CREATE_UNRESOLVED_STRING != null) {
-            return invokeStatic(CREATE_UNRESOLVED_STRING, value);
-        }
-        if (CREATE_UNRESOLVED_UUID != null) {
-            try {
-                return invokeStatic(CREATE_UNRESOLVED_UUID, UUID.fromString(value));
-            } catch (IllegalArgumentException ignored) {
+        try {
+            if (CREATE_UNRESOLVED_STRING != null) {
+                return (ResolvableProfile) CREATE_UNRESOLVED_STRING.invokeExact(value);
+            }
+            if (CREATE_UNRESOLVED_UUID != null) {
+                UUID id = parseUuid(value);
                 // Fall back to other strategies if the value is not a UUID
+                if (id != null) return (ResolvableProfile) CREATE_UNRESOLVED_UUID.invokeExact(id);
             }
-        }
-        if (!IS_ABSTRACT && CTOR_FULL != null) {
-            return newInstance(CTOR_FULL,
-                    Optional.of(value),
-                    Optional.empty(),
-                    newPropertyMap());
+            if (!IS_ABSTRACT && CTOR_FULL != null) {
+                return (ResolvableProfile) CTOR_FULL.invokeExact(
+                        Optional.of(value),
+                        Optional.empty(),
+                        newPropertyMap());
+            }
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to create unresolved ResolvableProfile", t);
         }
         throw new IllegalStateException("No compatible ResolvableProfile factory found for unresolved profile");
     }
 
+    // =====================================================================
+    // === Helpers =========================================================
+    // =====================================================================
+
     private static String extractName(GameProfile profile) {
-        try {
-            Method m = profile.getClass().getMethod("name");
-            return (String) m.invoke(profile);
-        } catch (ReflectiveOperationException ignored) {
-            try {
-                Method m = profile.getClass().getMethod("getName");
-                return (String) m.invoke(profile);
-            } catch (ReflectiveOperationException ignoredToo) {
-                try {
-                    RecordComponent rc = profile.getClass().getRecordComponents() != null
-                            ? java.util.Arrays.stream(profile.getClass().getRecordComponents())
-                            .filter(c -> c.getName().equals("name"))
-                            .findFirst().orElse(null)
-                            : null;
-                    if (rc != null) {
-                        return (String) rc.getAccessor().invoke(profile);
-                    }
-                } catch (ReflectiveOperationException ignoredThree) {
-                    // fall through
-                }
-                return null;
-            }
-        }
+        return IdentityCompat.nameOrNull(profile);
     }
 
     private static UUID extractId(GameProfile profile) {
+        return IdentityCompat.idOrNull(profile);
+    }
+
+    private static UUID parseUuid(String value) {
         try {
-            Method m = profile.getClass().getMethod("id");
-            return (UUID) m.invoke(profile);
-        } catch (ReflectiveOperationException ignored) {
-            try {
-                Method m = profile.getClass().getMethod("getId");
-                return (UUID) m.invoke(profile);
-            } catch (ReflectiveOperationException ignoredToo) {
-                try {
-                    RecordComponent rc = profile.getClass().getRecordComponents() != null
-                            ? java.util.Arrays.stream(profile.getClass().getRecordComponents())
-                            .filter(c -> c.getName().equals("id"))
-                            .findFirst().orElse(null)
-                            : null;
-                    if (rc != null) {
-                        return (UUID) rc.getAccessor().invoke(profile);
-                    }
-                } catch (ReflectiveOperationException ignoredThree) {
-                    // fall through
-                }
-                return null;
-            }
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
-    private static PropertyMap newPropertyMap() {
+    private static PropertyMap newPropertyMap() throws Throwable {
         if (PROPERTYMAP_NOARG != null) {
-            try {
-                return PROPERTYMAP_NOARG.newInstance();
-            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-                throw new IllegalStateException("Failed to construct PropertyMap via no-arg constructor", e);
-            }
+            return (PropertyMap) PROPERTYMAP_NOARG.invokeExact();
         }
         if (PROPERTYMAP_MULTIMAP != null) {
-            try {
-                return PROPERTYMAP_MULTIMAP.newInstance(LinkedHashMultimap.create());
-            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-                throw new IllegalStateException("Failed to construct PropertyMap via Multimap constructor", e);
-            }
+            return (PropertyMap) PROPERTYMAP_MULTIMAP.invokeExact((Multimap) LinkedHashMultimap.create());
         }
         throw new IllegalStateException("No compatible PropertyMap constructor found");
     }
 
-    private static PropertyMap extractProperties(GameProfile profile) {
-        try {
-            Method method = profile.getClass().getMethod("getProperties");
-            Object value = method.invoke(profile);
+    private static PropertyMap extractProperties(GameProfile profile) throws Throwable {
+        if (PROFILE_PROPERTIES != null) {
+            Object value = (Object) PROFILE_PROPERTIES.invokeExact(profile);
             if (value instanceof PropertyMap map) {
                 return map;
             }
-        } catch (ReflectiveOperationException ignored) {
-            // fall through
         }
         return newPropertyMap();
     }
 
-    private static ResolvableProfile invokeStatic(Method method, Object... args) {
+    private static MethodHandle findFactory(String name, Class<?> param) {
         try {
-            return (ResolvableProfile) method.invoke(null, args);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new IllegalStateException("Failed to invoke ResolvableProfile factory: " + method.getName(), e);
-        }
-    }
-
-    private static ResolvableProfile newInstance(Constructor<ResolvableProfile> ctor, Object... args) {
-        try {
-            return ctor.newInstance(args);
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new IllegalStateException("Failed to create ResolvableProfile via constructor: " + ctor, e);
-        }
-    }
-
-    private static Method findMethod(String name, Class<?>... params) {
-        try {
-            return ResolvableProfile.class.getMethod(name, params);
-        } catch (NoSuchMethodException e) {
+            return LOOKUP.findStatic(ResolvableProfile.class, name, MethodType.methodType(ResolvableProfile.class, param));
+        } catch (ReflectiveOperationException e) {
             return null;
         }
     }
 
-    private static Method findResolvedFactory() {
-        Method method = findMethod("createResolved", GameProfile.class);
-        if (method != null) {
-            return method;
+    private static MethodHandle findResolvedFactory() {
+        MethodHandle handle = findFactory("createResolved", GameProfile.class);
+        if (handle != null) {
+            return handle;
         }
         for (Method candidate : ResolvableProfile.class.getMethods()) {
             if (!Modifier.isStatic(candidate.getModifiers())) {
@@ -215,28 +213,43 @@ public final class ProfileComponentCompat {
             }
             Class<?>[] params = candidate.getParameterTypes();
             if (params.length == 1 && params[0].isAssignableFrom(GameProfile.class)) {
-                return candidate;
+                try {
+                    return LOOKUP.unreflect(candidate)
+                            .asType(MethodType.methodType(ResolvableProfile.class, GameProfile.class));
+                } catch (IllegalAccessException ignored) {
+                    // try next candidate
+                }
             }
         }
         return null;
     }
 
-    @SuppressWarnings("unchecked")
-    private static Constructor<ResolvableProfile> findConstructor(Class<?>... params) {
+    private static MethodHandle findConstructor(Class<?>... params) {
         try {
-            return (Constructor<ResolvableProfile>) ResolvableProfile.class.getConstructor(params);
-        } catch (NoSuchMethodException e) {
+            return LOOKUP.findConstructor(ResolvableProfile.class, MethodType.methodType(void.class, params))
+                    .asType(MethodType.methodType(ResolvableProfile.class, params));
+        } catch (ReflectiveOperationException e) {
             return null;
         }
     }
 
-    private static Constructor<PropertyMap> findPropertyMapConstructor(Class<?>... params) {
+    private static MethodHandle findPropertyMapConstructor(Class<?>... params) {
         try {
-            @SuppressWarnings("unchecked")
-            Constructor<PropertyMap> ctor = (Constructor<PropertyMap>) PropertyMap.class.getConstructor(params);
-            return ctor;
-        } catch (NoSuchMethodException e) {
+            return LOOKUP.findConstructor(PropertyMap.class, MethodType.methodType(void.class, params));
+        } catch (ReflectiveOperationException e) {
             return null;
         }
     }
+
+    private static MethodHandle findProfileProperties() {
+        for (String name : new String[] {"getProperties", "properties"}) {
+            try {
+                Method method = GameProfile.class.getMethod(name);
+                return LOOKUP.unreflect(method).asType(MethodType.methodType(Object.class, GameProfile.class));
+            } catch (ReflectiveOperationException ignored) {
+                // try next name
+            }
+        }
+        return null;
+    }
 }
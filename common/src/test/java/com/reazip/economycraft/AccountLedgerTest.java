@@ -0,0 +1,342 @@
+package com.reazip.economycraft;
+
+import com.reazip.economycraft.storage.BalanceJournal;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLedgerTest {
+    private static final long STARTING_BALANCE = 1_000;
+
+    @TempDir
+    Path dir;
+
+    private long savedStartingBalance;
+    private BalanceJournal journal;
+    private BalanceLeaderboard leaderboard;
+    private AccountLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        savedStartingBalance = EconomyConfig.get().startingBalance;
+        EconomyConfig.get().startingBalance = STARTING_BALANCE;
+        open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+        EconomyConfig.get().startingBalance = savedStartingBalance;
+    }
+
+    @Test
+    void opensAccountsWithStartingBalance() {
+        UUID id = new UUID(0, 1);
+        assertFalse(ledger.contains(id));
+        assertEquals(AccountLedger.NONE, ledger.balance(id));
+
+        assertEquals(STARTING_BALANCE, ledger.balanceOrOpen(id));
+        assertTrue(ledger.contains(id));
+        assertEquals(STARTING_BALANCE, ledger.balance(id));
+    }
+
+    @Test
+    void addSetAndRemoveClampToLimits() {
+        UUID id = new UUID(0, 1);
+        ledger.add(id, 500);
+        assertEquals(STARTING_BALANCE + 500, ledger.balance(id));
+
+        ledger.add(id, EconomyManager.MAX);
+        assertEquals(EconomyManager.MAX, ledger.balance(id));
+
+        ledger.set(id, -5);
+        assertEquals(0, ledger.balance(id));
+        ledger.set(id, Long.MAX_VALUE);
+        assertEquals(EconomyManager.MAX, ledger.balance(id));
+
+        ledger.set(id, 100);
+        assertFalse(ledger.remove(id, 101));
+        assertEquals(100, ledger.balance(id));
+        assertTrue(ledger.remove(id, 100));
+        assertEquals(0, ledger.balance(id));
+    }
+
+    @Test
+    void transferResults() {
+        UUID a = new UUID(0, 1);
+        UUID b = new UUID(0, 2);
+        ledger.set(a, 300);
+        ledger.set(b, EconomyManager.MAX - 100);
+
+        assertEquals(EconomyManager.TransferResult.INVALID_AMOUNT, ledger.transfer(a, b, 0));
+        assertEquals(EconomyManager.TransferResult.INVALID_AMOUNT, ledger.transfer(a, b, -1));
+        assertEquals(EconomyManager.TransferResult.SAME_ACCOUNT, ledger.transfer(a, a, 10));
+        assertEquals(EconomyManager.TransferResult.INSUFFICIENT_FUNDS, ledger.transfer(a, b, 301));
+        assertEquals(EconomyManager.TransferResult.RECIPIENT_LIMIT, ledger.transfer(a, b, 101));
+        // refused transfers change neither side
+        assertEquals(300, ledger.balance(a));
+        assertEquals(EconomyManager.MAX - 100, ledger.balance(b));
+
+        assertEquals(EconomyManager.TransferResult.SUCCESS, ledger.transfer(a, b, 100));
+        assertEquals(200, ledger.balance(a));
+        assertEquals(EconomyManager.MAX, ledger.balance(b));
+    }
+
+    @Test
+    void transferOpensMissingAccounts() {
+        UUID a = new UUID(0, 1);
+        UUID b = new UUID(0, 2);
+        assertEquals(EconomyManager.TransferResult.SUCCESS, ledger.transfer(a, b, 250));
+        assertEquals(STARTING_BALANCE - 250, ledger.balance(a));
+        assertEquals(STARTING_BALANCE + 250, ledger.balance(b));
+    }
+
+    @Test
+    void deleteRemovesAccountAndRanking() {
+        UUID id = new UUID(0, 1);
+        assertFalse(ledger.delete(id));
+        ledger.add(id, 1);
+        assertEquals(1, leaderboard.size());
+
+        assertTrue(ledger.delete(id));
+        assertFalse(ledger.contains(id));
+        assertEquals(0, leaderboard.size());
+    }
+
+    @Test
+    void dailyRewardOncePerDay() {
+        UUID id = new UUID(0, 1);
+        assertTrue(ledger.claimDaily(id, 100, 50));
+        assertFalse(ledger.claimDaily(id, 100, 50));
+        assertEquals(STARTING_BALANCE + 50, ledger.balance(id));
+        assertTrue(ledger.claimDaily(id, 101, 50));
+        assertEquals(STARTING_BALANCE + 100, ledger.balance(id));
+    }
+
+    @Test
+    void dailySellLimitResetsEachDay() {
+        UUID id = new UUID(0, 1);
+        assertFalse(ledger.recordSellOverLimit(id, 7, 600, 1_000));
+        assertTrue(ledger.recordSellOverLimit(id, 7, 401, 1_000));
+        assertFalse(ledger.recordSellOverLimit(id, 7, 400, 1_000));
+        assertEquals(1_000, ledger.soldToday(id, 7));
+
+        assertEquals(0, ledger.soldToday(id, 8));
+        assertFalse(ledger.recordSellOverLimit(id, 8, 1_000, 1_000));
+    }
+
+    @Test
+    void stateSurvivesReload() {
+        UUID id = new UUID(0, 1);
+        ledger.set(id, 1234);
+        ledger.claimDaily(id, 9, 10);
+        ledger.recordSellOverLimit(id, 9, 77, 1_000);
+
+        journal.close();
+        open();
+        assertEquals(1244, ledger.balance(id));
+        assertFalse(ledger.claimDaily(id, 9, 10));
+        assertEquals(77, ledger.soldToday(id, 9));
+    }
+
+    @Test
+    void concurrentTransfersConserveMoneyAndKeepRankingInSync() throws Exception {
+        UUID[] ids = accounts(64);
+        int threads = 8;
+        int transfersPerThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            tasks.add(pool.submit(() -> {
+                SplittableRandom rng = new SplittableRandom(seed);
+                go.await();
+                for (int i = 0; i < transfersPerThread; i++) {
+                    UUID from = ids[rng.nextInt(ids.length)];
+                    UUID to = ids[rng.nextInt(ids.length)];
+                    ledger.transfer(from, to, 1 + rng.nextInt(50));
+                }
+                return null;
+            }));
+        }
+        // names arrive from joins on another thread while balances move
+        tasks.add(pool.submit(() -> {
+            go.await();
+            for (int i = 0; i < 2_000; i++) {
+                UUID id = ids[i % ids.length];
+                leaderboard.rename(id, "player" + (i % 7) + "_" + id.getLeastSignificantBits());
+            }
+            return null;
+        }));
+        go.countDown();
+        for (Future<?> f : tasks) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        long total = 0;
+        for (UUID id : ids) total += ledger.balance(id);
+        assertEquals(ids.length * STARTING_BALANCE, total);
+        assertRankingMatchesLedger(ids.length);
+
+        // every stripe's journal lane made it to disk in per-account order
+        Object2LongMap<UUID> before = ledger.snapshot();
+        journal.close();
+        open();
+        assertEquals(before, ledger.snapshot());
+    }
+
+    @Test
+    void concurrentDeletesAndWritesLeaveNoStaleRanking() throws Exception {
+        // few accounts and many threads, so leaderboard updates for one account race each other
+        UUID[] ids = accounts(8);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = 200 + t;
+            tasks.add(pool.submit(() -> {
+                SplittableRandom rng = new SplittableRandom(seed);
+                go.await();
+                for (int i = 0; i < 20_000; i++) {
+                    UUID id = ids[rng.nextInt(ids.length)];
+                    switch (rng.nextInt(5)) {
+                        case 0 -> ledger.delete(id);
+                        case 1 -> ledger.set(id, rng.nextInt(10_000));
+                        case 2 -> ledger.add(id, rng.nextInt(100));
+                        case 3 -> ledger.remove(id, rng.nextInt(100));
+                        default -> ledger.transfer(id, ids[rng.nextInt(ids.length)], 1 + rng.nextInt(100));
+                    }
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> f : tasks) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertRankingMatchesLedger(ledger.snapshot().size());
+        Object2LongMap<UUID> before = ledger.snapshot();
+        journal.close();
+        open();
+        assertEquals(before, ledger.snapshot());
+    }
+
+    @Test
+    void leaderboardDropsStaleUpdates() {
+        UUID id = new UUID(0, 1);
+        leaderboard.put(id, 50, 2);
+        leaderboard.put(id, 70, 1);
+        assertEquals(50, leaderboard.top(1).get(0).balance());
+
+        leaderboard.remove(id, 3);
+        leaderboard.put(id, 90, 2);
+        assertEquals(0, leaderboard.size());
+
+        leaderboard.put(id, 90, 4);
+        assertEquals(90, leaderboard.top(1).get(0).balance());
+    }
+
+    @Test
+    void concurrentMixedOperationsAreJournaled() throws Exception {
+        UUID[] ids = accounts(32);
+        int threads = 6;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = 100 + t;
+            tasks.add(pool.submit(() -> {
+                SplittableRandom rng = new SplittableRandom(seed);
+                for (int i = 0; i < 10_000; i++) {
+                    UUID id = ids[rng.nextInt(ids.length)];
+                    switch (rng.nextInt(4)) {
+                        case 0 -> ledger.add(id, rng.nextInt(100));
+                        case 1 -> ledger.remove(id, rng.nextInt(100));
+                        case 2 -> ledger.set(id, rng.nextInt(5_000));
+                        default -> ledger.transfer(id, ids[rng.nextInt(ids.length)], 1 + rng.nextInt(100));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : tasks) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertRankingMatchesLedger(ids.length);
+
+        Object2LongMap<UUID> before = ledger.snapshot();
+        journal.close();
+        open();
+        assertEquals(before, ledger.snapshot());
+        assertRankingMatchesLedger(ids.length);
+    }
+
+    @Test
+    void rankingUsesNamesRecordedBeforeOrAfterAccountOpens() {
+        UUID early = new UUID(0, 1);
+        UUID late = new UUID(0, 2);
+        UUID unnamed = new UUID(0, 3);
+        leaderboard.rename(early, "alice");
+        ledger.add(early, 0);
+        ledger.add(late, 0);
+        ledger.add(unnamed, 0);
+        leaderboard.rename(late, "Bob");
+
+        List<BalanceLeaderboard.Standing> top = leaderboard.top(3);
+        assertEquals(List.of("alice", "Bob"), top.subList(0, 2).stream().map(BalanceLeaderboard.Standing::name).toList());
+        assertNull(top.get(2).name());
+    }
+
+    private void open() {
+        journal = new BalanceJournal(dir);
+        leaderboard = new BalanceLeaderboard();
+        ledger = new AccountLedger(journal, leaderboard);
+        journal.load(new BalanceJournal.Sink() {
+            @Override
+            public void balance(UUID player, long balance) {
+                ledger.loadBalance(player, balance);
+            }
+
+            @Override
+            public void daily(UUID player, long day) {
+                ledger.loadDaily(player, day);
+            }
+
+            @Override
+            public void dailySell(UUID player, long day, long amount) {
+                ledger.loadDailySell(player, day, amount);
+            }
+        });
+        journal.start();
+    }
+
+    private UUID[] accounts(int n) {
+        UUID[] ids = new UUID[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = new UUID(42, i);
+            assertEquals(STARTING_BALANCE, ledger.balanceOrOpen(ids[i]));
+        }
+        return ids;
+    }
+
+    private void assertRankingMatchesLedger(int accounts) {
+        List<BalanceLeaderboard.Standing> top = leaderboard.top(Integer.MAX_VALUE);
+        assertEquals(accounts, top.size());
+        assertEquals(accounts, leaderboard.size());
+        Object2LongMap<UUID> balances = ledger.snapshot();
+        long previous = Long.MAX_VALUE;
+        for (BalanceLeaderboard.Standing s : top) {
+            assertTrue(balances.containsKey(s.id()), "ranked account was deleted");
+            assertEquals(balances.getLong(s.id()), s.balance());
+            assertTrue(s.balance() <= previous);
+            previous = s.balance();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.reazip.economycraft;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.alchemy.PotionContents;
+import net.minecraft.world.item.alchemy.Potions;
+import net.minecraft.world.item.component.BundleContents;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiquidationTest {
+    @TempDir
+    Path dir;
+
+    private PriceRegistry prices;
+    // main slots 0-35, then the offhand
+    private final ItemStack[] inventory = new ItemStack[Liquidation.MAIN_SLOTS + 1];
+    private final IntFunction<ItemStack> slots =
+            slot -> inventory[slot == Liquidation.OFFHAND ? Liquidation.MAIN_SLOTS : slot];
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(dir.resolve("prices.json"), """
+                {"minecraft:bundle": {"category": "misc", "stack": 1, "unit_buy": 0, "unit_sell": 3},
+                 "minecraft:diamond": {"category": "ores", "stack": 64, "unit_buy": 0, "unit_sell": 80},
+                 "minecraft:potion_of_swiftness_1": {"category": "brewing", "stack": 1, "unit_buy": 0, "unit_sell": 40},
+                 "minecraft:water_bottle": {"category": "brewing", "stack": 1, "unit_buy": 0, "unit_sell": 1}}
+                """, StandardCharsets.UTF_8);
+        prices = new PriceRegistry(dir);
+        Arrays.fill(inventory, ItemStack.EMPTY);
+    }
+
+    @Test
+    void untouchedInventoryStaysCurrent() {
+        inventory[0] = new ItemStack(Items.DIAMOND, 10);
+        inventory[Liquidation.MAIN_SLOTS] = new ItemStack(Items.DIAMOND, 5);
+
+        Liquidation.Plan plan = Liquidation.scan(slots, prices, Liquidation.SELL);
+        assertEquals(15, plan.itemCount());
+        assertEquals(15 * 80L, plan.total());
+        assertTrue(plan.isCurrent(slots, prices));
+
+        inventory[0].shrink(1);
+        assertFalse(plan.isCurrent(slots, prices));
+    }
+
+    @Test
+    void bundleFilledAfterScanIsNotCurrent() {
+        ItemStack bundle = new ItemStack(Items.BUNDLE);
+        inventory[3] = bundle;
+        Liquidation.Plan plan = Liquidation.scan(slots, prices, Liquidation.SELL);
+        assertEquals(1, plan.itemCount());
+        assertTrue(plan.isCurrent(slots, prices));
+
+        // same instance, same count, new contents
+        bundle.set(DataComponents.BUNDLE_CONTENTS, new BundleContents(List.of(new ItemStack(Items.DIAMOND, 16))));
+        assertFalse(plan.isCurrent(slots, prices));
+        assertEquals(0, Liquidation.scan(slots, prices, Liquidation.SELL).itemCount());
+    }
+
+    @Test
+    void stackWhosePriceKeyChangedIsNotCurrent() {
+        ItemStack potion = PotionContents.createItemStack(Items.POTION, Potions.SWIFTNESS);
+        inventory[7] = potion;
+        Liquidation.Plan plan = Liquidation.scan(slots, prices, Liquidation.SELL);
+        assertEquals(40L, plan.total());
+
+        potion.set(DataComponents.POTION_CONTENTS, new PotionContents(Potions.WATER));
+        assertFalse(plan.isCurrent(slots, prices));
+        assertEquals(1L, Liquidation.scan(slots, prices, Liquidation.SELL).total());
+    }
+}
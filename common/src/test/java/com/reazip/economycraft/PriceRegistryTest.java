@@ -0,0 +1,89 @@
+package com.reazip.economycraft;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.alchemy.PotionContents;
+import net.minecraft.world.item.alchemy.Potions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceRegistryTest {
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @Test
+    void plainItemsAreResolvedOncePerItem() throws IOException {
+        PriceRegistry registry = open("""
+                {"minecraft:diamond": {"category": "ores", "stack": 64, "unit_buy": 7, "unit_sell": 3}}
+                """);
+
+        PriceRegistry.ResolvedPrice first = registry.resolve(new ItemStack(Items.DIAMOND));
+        assertEquals(7, first.entry().unitBuy());
+        assertEquals("diamond", first.key().path());
+        // stack size and other components do not matter for plain items
+        assertSame(first, registry.resolve(new ItemStack(Items.DIAMOND, 32)));
+        assertNull(registry.resolve(ItemStack.EMPTY));
+    }
+
+    @Test
+    void potionsAreCachedPerContents() throws IOException {
+        PriceRegistry registry = open("""
+                {"minecraft:potion_of_swiftness_1": {"category": "brewing", "stack": 1, "unit_buy": 11, "unit_sell": 4},
+                 "minecraft:water_bottle": {"category": "brewing", "stack": 1, "unit_buy": 2, "unit_sell": 1}}
+                """);
+
+        PriceRegistry.ResolvedPrice swiftness = registry.resolve(PotionContents.createItemStack(Items.POTION, Potions.SWIFTNESS));
+        PriceRegistry.ResolvedPrice water = registry.resolve(PotionContents.createItemStack(Items.POTION, Potions.WATER));
+        assertEquals(11, swiftness.entry().unitBuy());
+        assertEquals(2, water.entry().unitBuy());
+        assertSame(swiftness, registry.resolve(PotionContents.createItemStack(Items.POTION, Potions.SWIFTNESS)));
+        assertSame(water, registry.resolve(PotionContents.createItemStack(Items.POTION, Potions.WATER)));
+    }
+
+    @Test
+    void reloadClearsCachedPricesAndMisses() throws IOException {
+        PriceRegistry registry = open("""
+                {"minecraft:diamond": {"category": "ores", "stack": 64, "unit_buy": 7, "unit_sell": 3}}
+                """);
+        assertEquals(7, registry.get(new ItemStack(Items.DIAMOND)).unitBuy());
+        // not in the bundled defaults; the miss is cached too
+        assertNull(registry.resolve(new ItemStack(Items.COMMAND_BLOCK)));
+        assertNull(registry.resolve(new ItemStack(Items.COMMAND_BLOCK)));
+        int generation = registry.generation();
+
+        write("""
+                {"minecraft:diamond": {"category": "ores", "stack": 64, "unit_buy": 9, "unit_sell": 3},
+                 "minecraft:command_block": {"category": "misc", "stack": 1, "unit_buy": 0, "unit_sell": 5}}
+                """);
+        registry.reload();
+
+        assertNotEquals(generation, registry.generation());
+        assertEquals(9, registry.get(new ItemStack(Items.DIAMOND)).unitBuy());
+        assertEquals(5, registry.get(new ItemStack(Items.COMMAND_BLOCK)).unitSell());
+    }
+
+    private PriceRegistry open(String json) throws IOException {
+        write(json);
+        return new PriceRegistry(dir);
+    }
+
+    private void write(String json) throws IOException {
+        Files.writeString(dir.resolve("prices.json"), json, StandardCharsets.UTF_8);
+    }
+}
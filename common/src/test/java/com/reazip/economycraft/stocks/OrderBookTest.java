@@ -0,0 +1,163 @@
+package com.reazip.economycraft.stocks;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+    private static final UUID ALICE = new UUID(0, 1);
+    private static final UUID BOB = new UUID(0, 2);
+    private static final UUID CAROL = new UUID(0, 3);
+
+    @Test
+    void matchesBestPriceFirstThenOldestOrder() {
+        OrderBook book = new OrderBook();
+        book.rest(1, ALICE, OrderBook.Side.SELL, 105, 10);
+        book.rest(2, BOB, OrderBook.Side.SELL, 100, 5);
+        book.rest(3, CAROL, OrderBook.Side.SELL, 100, 5);
+
+        List<OrderBook.Fill> fills = new ArrayList<>();
+        long left = book.match(OrderBook.Side.BUY, 105, 12, fills);
+
+        assertEquals(0, left);
+        assertEquals(3, fills.size());
+        assertFill(fills.get(0), 2, 100, 5);
+        assertFill(fills.get(1), 3, 100, 5);
+        assertFill(fills.get(2), 1, 105, 2);
+        assertEquals(8, book.get(1).remaining);
+        assertNull(book.get(2));
+        assertEquals(105, book.bestAsk());
+    }
+
+    @Test
+    void stopsAtLimitAndReturnsRemainder() {
+        OrderBook book = new OrderBook();
+        book.rest(1, ALICE, OrderBook.Side.BUY, 50, 3);
+        book.rest(2, BOB, OrderBook.Side.BUY, 40, 3);
+
+        List<OrderBook.Fill> fills = new ArrayList<>();
+        long left = book.match(OrderBook.Side.SELL, 45, 10, fills);
+
+        assertEquals(7, left);
+        assertEquals(1, fills.size());
+        assertFill(fills.get(0), 1, 50, 3);
+        assertEquals(40, book.bestBid());
+    }
+
+    @Test
+    void cancelledOrdersAreSkipped() {
+        OrderBook book = new OrderBook();
+        book.rest(1, ALICE, OrderBook.Side.SELL, 100, 5);
+        book.rest(2, BOB, OrderBook.Side.SELL, 100, 5);
+
+        OrderBook.Order cancelled = book.cancel(1);
+        assertEquals(5, cancelled.remaining);
+        assertNull(book.cancel(1));
+        assertArrayEquals(new long[]{100, 5}, book.depth(OrderBook.Side.SELL, 1)[0]);
+
+        List<OrderBook.Fill> fills = new ArrayList<>();
+        assertEquals(0, book.match(OrderBook.Side.BUY, 100, 5, fills));
+        assertEquals(1, fills.size());
+        assertFill(fills.get(0), 2, 100, 5);
+        assertTrue(book.isEmpty());
+        assertEquals(0, book.bestAsk());
+    }
+
+    @Test
+    void cancellingLastOrderRemovesLevel() {
+        OrderBook book = new OrderBook();
+        book.rest(1, ALICE, OrderBook.Side.BUY, 30, 1);
+        book.rest(2, ALICE, OrderBook.Side.BUY, 20, 1);
+        book.rest(3, ALICE, OrderBook.Side.BUY, 10, 1);
+
+        book.cancel(2);
+        long[][] depth = book.depth(OrderBook.Side.BUY, 10);
+        assertEquals(2, depth.length);
+        assertEquals(30, depth[0][0]);
+        assertEquals(10, depth[1][0]);
+    }
+
+    @Test
+    void depthListsLevelsFromBestOutward() {
+        OrderBook book = new OrderBook();
+        // more levels than the initial capacity, inserted out of order
+        for (int i = 0; i < 40; i++) {
+            long price = 100 + (i * 7) % 40;
+            book.rest(i + 1, ALICE, OrderBook.Side.SELL, price, 1);
+            book.rest(100 + i, BOB, OrderBook.Side.BUY, price - 50, 2);
+        }
+
+        long[][] asks = book.depth(OrderBook.Side.SELL, 40);
+        long[][] bids = book.depth(OrderBook.Side.BUY, 40);
+        for (int i = 0; i < 40; i++) {
+            assertArrayEquals(new long[]{100 + i, 1}, asks[i]);
+            assertArrayEquals(new long[]{89 - i, 2}, bids[i]);
+        }
+    }
+
+    @Test
+    void costToBuyWalksTheAsks() {
+        OrderBook book = new OrderBook();
+        book.rest(1, ALICE, OrderBook.Side.SELL, 10, 2);
+        book.rest(2, BOB, OrderBook.Side.SELL, 12, 3);
+
+        assertEquals(10 + 10 + 12, book.costToBuy(3));
+        assertEquals(20 + 36, book.costToBuy(100));
+        assertEquals(0, new OrderBook().costToBuy(5));
+    }
+
+    @Test
+    void ordersAreListedOldestFirst() {
+        OrderBook book = new OrderBook();
+        book.rest(7, ALICE, OrderBook.Side.SELL, 10, 1);
+        book.rest(3, BOB, OrderBook.Side.BUY, 5, 1);
+        book.rest(5, CAROL, OrderBook.Side.SELL, 11, 1);
+
+        assertEquals(List.of(3L, 5L, 7L), book.orders().stream().map(o -> o.id).toList());
+    }
+
+    @Test
+    void randomFlowConservesQuantity() {
+        OrderBook book = new OrderBook();
+        SplittableRandom rng = new SplittableRandom(11);
+        long rested = 0, filled = 0, cancelled = 0;
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 20_000; id++) {
+            OrderBook.Side side = rng.nextBoolean() ? OrderBook.Side.BUY : OrderBook.Side.SELL;
+            long price = 90 + rng.nextInt(21);
+            long qty = 1 + rng.nextInt(10);
+            List<OrderBook.Fill> fills = new ArrayList<>();
+            long left = book.match(side, price, qty, fills);
+            for (OrderBook.Fill f : fills) {
+                assertNotEquals(side, f.maker().side);
+                assertTrue(side == OrderBook.Side.BUY ? f.price() <= price : f.price() >= price);
+                filled += f.qty();
+            }
+            assertEquals(qty, left + fills.stream().mapToLong(OrderBook.Fill::qty).sum());
+            if (left > 0) {
+                book.rest(id, ALICE, side, price, left);
+                rested += left;
+                ids.add(id);
+            }
+            if (rng.nextInt(4) == 0 && !ids.isEmpty()) {
+                OrderBook.Order c = book.cancel(ids.remove(rng.nextInt(ids.size())));
+                if (c != null) cancelled += c.remaining;
+            }
+            long bid = book.bestBid(), ask = book.bestAsk();
+            assertTrue(bid == 0 || ask == 0 || bid < ask, "book must not stay crossed");
+        }
+        long resting = book.orders().stream().mapToLong(o -> o.remaining).sum();
+        assertEquals(rested, filled + cancelled + resting);
+    }
+
+    private static void assertFill(OrderBook.Fill fill, long makerId, long price, long qty) {
+        assertEquals(makerId, fill.maker().id);
+        assertEquals(price, fill.price());
+        assertEquals(qty, fill.qty());
+    }
+}
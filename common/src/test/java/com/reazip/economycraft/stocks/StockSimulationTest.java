@@ -0,0 +1,84 @@
+package com.reazip.economycraft.stocks;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockSimulationTest {
+    private static final StockSimulation.PriceModel[] MODELS = {
+            StockSimulation.PriceModel.RANDOM_WALK,
+            StockSimulation.PriceModel.GBM,
+            StockSimulation.PriceModel.MEAN_REVERSION
+    };
+
+    @Test
+    void sameSeedGivesSamePricePath() {
+        for (StockSimulation.PriceModel model : MODELS) {
+            assertArrayEquals(path(model, 42L, 500), path(model, 42L, 500));
+        }
+    }
+
+    @Test
+    void differentSeedGivesDifferentPricePath() {
+        for (StockSimulation.PriceModel model : MODELS) {
+            assertFalse(Arrays.equals(path(model, 1L, 50), path(model, 2L, 50)));
+        }
+    }
+
+    @Test
+    void splitEnginesFollowTheSamePath() {
+        StockSimulation a = engine(StockSimulation.PriceModel.GBM, 7L);
+        StockSimulation b = engine(StockSimulation.PriceModel.GBM, 7L);
+        for (int tick = 0; tick < 100; tick++) {
+            StockSimulation nextA = a.split();
+            StockSimulation nextB = b.split();
+            nextA.step();
+            nextB.step();
+            a.copyPricesFrom(nextA);
+            b.copyPricesFrom(nextB);
+            for (int i = 0; i < a.size(); i++) assertEquals(a.price(i), b.price(i));
+        }
+    }
+
+    @Test
+    void volumeMovesPriceAndIsResetByStep() {
+        StockSimulation sim = new StockSimulation((price, volatility, anchor, rng) -> price, 0L);
+        int i = sim.add(100.0, 100.0, 0.0, 0.0);
+        sim.addVolume(i, 5);
+        sim.step();
+        assertEquals(105.0, sim.price(i), 1e-9);
+        sim.step();
+        assertEquals(105.0, sim.price(i), 1e-9);
+    }
+
+    @Test
+    void priceNeverFallsBelowMinimumOrMovesMoreThanMaxPerTick() {
+        StockSimulation sim = new StockSimulation((price, volatility, anchor, rng) -> 0.0, 0L);
+        int i = sim.add(100.0, 100.0, 0.0, 0.0);
+        sim.step();
+        assertEquals(80.0, sim.price(i), 1e-9);
+        sim.setPrice(i, -5.0);
+        assertEquals(0.01, sim.price(i), 1e-12);
+    }
+
+    private static StockSimulation engine(StockSimulation.PriceModel model, long seed) {
+        StockSimulation sim = new StockSimulation(model, seed);
+        sim.add(100.0, 100.0, 0.05, 1000.0);
+        sim.add(10.0, 12.0, 0.10, 50.0);
+        sim.add(2500.0, 2000.0, 0.02, 10_000.0);
+        return sim;
+    }
+
+    private static double[] path(StockSimulation.PriceModel model, long seed, int ticks) {
+        StockSimulation sim = engine(model, seed);
+        double[] out = new double[ticks * sim.size()];
+        for (int t = 0; t < ticks; t++) {
+            if (t % 10 == 0) sim.addVolume(1, t % 20 == 0 ? 25 : -25);
+            sim.step();
+            for (int i = 0; i < sim.size(); i++) out[t * sim.size() + i] = sim.price(i);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,134 @@
+package com.reazip.economycraft.stocks;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickLogTest {
+    private static final int SEG = TickLog.SEGMENT_RECORDS;
+    // ticks are appended at one per millisecond starting here
+    private static final long T0 = 1_000_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void lastSpansSegmentsOldestFirst() throws IOException {
+        TickLog log = new TickLog(dir, 0, 0);
+        append(log, 0, SEG + 10);
+
+        double[] prices = prices(log.last(20));
+        assertEquals(20, prices.length);
+        for (int i = 0; i < 20; i++) assertEquals(SEG - 10 + i, prices[i]);
+        assertEquals(SEG + 10, prices(log.last(Integer.MAX_VALUE)).length);
+    }
+
+    @Test
+    void rangeIsInclusive() throws IOException {
+        TickLog log = new TickLog(dir, 0, 0);
+        append(log, 0, SEG + 100);
+
+        double[] prices = prices(log.range(T0 + SEG - 5, T0 + SEG + 5));
+        assertEquals(11, prices.length);
+        assertEquals(SEG - 5, prices[0]);
+        assertEquals(SEG + 5, prices[10]);
+        assertEquals(0, log.range(0, T0 - 1).size());
+    }
+
+    @Test
+    void reopenRestoresFillLevel() throws IOException {
+        TickLog log = new TickLog(dir, 0, 0);
+        append(log, 0, SEG + 3);
+        log.force();
+
+        TickLog reopened = new TickLog(dir, 0, 0);
+        assertEquals(T0 + SEG + 2, reopened.lastTime());
+        append(reopened, SEG + 3, 2);
+        double[] prices = prices(reopened.last(6));
+        assertArrayEquals(new double[]{SEG - 1, SEG, SEG + 1, SEG + 2, SEG + 3, SEG + 4}, prices);
+    }
+
+    @Test
+    void maxSegmentsDeletesOldestFiles() throws IOException {
+        TickLog log = new TickLog(dir, 0, 2);
+        append(log, 0, 3 * SEG + 1);
+
+        assertFalse(Files.exists(segment(0)));
+        assertFalse(Files.exists(segment(1)));
+        assertTrue(Files.exists(segment(2)));
+        assertTrue(Files.exists(segment(3)));
+        assertEquals(SEG + 1, prices(log.last(Integer.MAX_VALUE)).length);
+    }
+
+    @Test
+    void retentionDropsSegmentsOlderThanLimit() throws IOException {
+        TickLog log = new TickLog(dir, 1_000, 0);
+        append(log, 0, SEG);
+        log.append(T0 + SEG + 5_000, 1);
+
+        // the first segment's newest tick is 5 s older than the tick that rolled it
+        assertFalse(Files.exists(segment(0)));
+        assertEquals(1, prices(log.last(Integer.MAX_VALUE)).length);
+    }
+
+    @Test
+    void undeletableSegmentIsRetriedOnNextRoll() throws IOException {
+        TickLog log = new TickLog(dir, 0, 1);
+        append(log, 0, SEG);
+        // stand-in for a segment the OS refuses to delete: a non-empty directory
+        Files.delete(segment(0));
+        Files.createDirectory(segment(0));
+        Path blocker = Files.createFile(segment(0).resolve("blocker"));
+
+        append(log, SEG, 1);
+        assertEquals(1, log.pendingDeletes());
+        assertTrue(Files.exists(segment(0)));
+
+        Files.delete(blocker);
+        append(log, SEG + 1, SEG);
+        assertEquals(0, log.pendingDeletes());
+        assertFalse(Files.exists(segment(0)));
+        assertFalse(Files.exists(segment(1)));
+    }
+
+    @Test
+    void importsLegacyFile() throws IOException {
+        Path legacy = dir.resolve("ticks.bin");
+        ByteBuffer buf = ByteBuffer.allocate(3 * TickLog.RECORD_BYTES);
+        for (int i = 0; i < 3; i++) buf.putLong(T0 + i).putDouble(i);
+        Files.write(legacy, buf.array());
+
+        TickLog log = new TickLog(dir.resolve("ticks"), 0, 0);
+        log.importLegacy(legacy);
+
+        assertFalse(Files.exists(legacy));
+        assertArrayEquals(new double[]{0, 1, 2}, prices(log.last(10)));
+    }
+
+    private Path segment(int seq) {
+        return dir.resolve(String.format("ticks-%08d.seg", seq));
+    }
+
+    /** Appends ticks {@code from .. from + count - 1}; tick i has time T0 + i and price i. */
+    private static void append(TickLog log, int from, int count) throws IOException {
+        for (int i = from; i < from + count; i++) log.append(T0 + i, i);
+    }
+
+    private static double[] prices(List<ByteBuffer> slices) {
+        int n = 0;
+        for (ByteBuffer b : slices) n += b.remaining() / TickLog.RECORD_BYTES;
+        double[] out = new double[n];
+        int i = 0;
+        for (ByteBuffer b : slices) {
+            for (int p = b.position(); p < b.limit(); p += TickLog.RECORD_BYTES) out[i++] = b.getDouble(p + 8);
+        }
+        return out;
+    }
+}
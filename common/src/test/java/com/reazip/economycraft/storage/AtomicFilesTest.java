@@ -0,0 +1,101 @@
+package com.reazip.economycraft.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtomicFilesTest {
+    /** Thrown by the fault hook to stop a write part way, as a crash would. */
+    private static final class Crash extends RuntimeException {}
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void clearHook() {
+        AtomicFiles.afterStep = null;
+    }
+
+    @Test
+    void rotatesBackupGenerations() throws IOException {
+        Path file = dir.resolve("data.json");
+        for (int i = 1; i <= 5; i++) AtomicFiles.write(file, "v" + i);
+
+        assertEquals("v5", Files.readString(file));
+        assertEquals("v4", Files.readString(AtomicFiles.generation(file, 1)));
+        assertEquals("v3", Files.readString(AtomicFiles.generation(file, 2)));
+        assertEquals("v2", Files.readString(AtomicFiles.generation(file, 3)));
+        assertFalse(Files.exists(AtomicFiles.generation(file, 4)));
+    }
+
+    @Test
+    void crashBeforeBackupKeepsTarget() throws IOException {
+        Path file = dir.resolve("data.json");
+        AtomicFiles.write(file, "old");
+        crashAt("written");
+
+        assertThrows(Crash.class, () -> AtomicFiles.write(file, "new"));
+        assertEquals("old", Files.readString(file));
+        assertEquals("old", readString(file));
+    }
+
+    @Test
+    void crashBetweenBackupAndReplaceKeepsTarget() throws IOException {
+        Path file = dir.resolve("data.json");
+        AtomicFiles.write(file, "old");
+        crashAt("backed-up");
+
+        assertThrows(Crash.class, () -> AtomicFiles.write(file, "new"));
+        assertEquals("old", Files.readString(file));
+        assertEquals("old", Files.readString(AtomicFiles.generation(file, 1)));
+
+        AtomicFiles.afterStep = null;
+        AtomicFiles.write(file, "new");
+        assertEquals("new", Files.readString(file));
+        assertEquals("old", Files.readString(AtomicFiles.generation(file, 1)));
+    }
+
+    @Test
+    void backupIsNotChangedByLaterWrites() throws IOException {
+        Path file = dir.resolve("data.json");
+        AtomicFiles.write(file, "a");
+        AtomicFiles.write(file, "b");
+        AtomicFiles.write(file, "c");
+
+        assertEquals("c", Files.readString(file));
+        assertEquals("b", Files.readString(AtomicFiles.generation(file, 1)));
+        assertEquals("a", Files.readString(AtomicFiles.generation(file, 2)));
+    }
+
+    @Test
+    void readFallsBackToNewestReadableBackup() throws IOException {
+        Path file = dir.resolve("data.json");
+        AtomicFiles.write(file, "{\"v\":1}");
+        AtomicFiles.write(file, "{\"v\":2}");
+        Files.writeString(file, "{\"v\":", StandardCharsets.UTF_8);
+
+        assertEquals(1, AtomicFiles.readJson(file).get("v").getAsInt());
+    }
+
+    @Test
+    void readReturnsNullWithoutAnyCopy() {
+        assertNull(AtomicFiles.readJson(dir.resolve("missing.json")));
+    }
+
+    private static void crashAt(String step) {
+        AtomicFiles.afterStep = name -> {
+            if (name.equals(step)) throw new Crash();
+        };
+    }
+
+    private static String readString(Path file) {
+        return AtomicFiles.read(file, data -> new String(data, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+package com.reazip.economycraft.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void migratesLegacyFileWithItsBackups() throws IOException {
+        Path json = dir.resolve("shop.json");
+        Path dat = dir.resolve("shop.dat");
+        AtomicFiles.write(json, "J:old");
+        AtomicFiles.write(json, "J:new");
+
+        assertEquals("new", load(dat, "D:", json, "J:"));
+        assertEquals("D:new", Files.readString(dat));
+        assertFalse(AtomicFiles.exists(json));
+        assertEquals("J:new", Files.readString(dir.resolve("shop.json.migrated")));
+        assertEquals("J:old", Files.readString(AtomicFiles.generation(dir.resolve("shop.json.migrated"), 1)));
+    }
+
+    @Test
+    void switchingFormatsBackAndForthKeepsLatestState() throws IOException {
+        Path json = dir.resolve("orders.json");
+        Path dat = dir.resolve("orders.dat");
+        AtomicFiles.write(json, "J:1");
+        AtomicFiles.write(json, "J:2");
+
+        assertEquals("2", load(dat, "D:", json, "J:"));
+        AtomicFiles.write(dat, "D:3");
+
+        // no stale orders.json backup may shadow the newer binary file
+        assertEquals("3", load(json, "J:", dat, "D:"));
+        assertEquals("J:3", Files.readString(json));
+        assertFalse(AtomicFiles.exists(dat));
+
+        AtomicFiles.write(json, "J:4");
+        assertEquals("4", load(dat, "D:", json, "J:"));
+        assertEquals("D:4", Files.readString(dat));
+    }
+
+    @Test
+    void ignoresLegacyFileWhenTargetExists() throws IOException {
+        Path json = dir.resolve("shop.json");
+        Path dat = dir.resolve("shop.dat");
+        AtomicFiles.write(dat, "D:current");
+        AtomicFiles.write(json, "J:stale");
+
+        assertEquals("current", load(dat, "D:", json, "J:"));
+        assertEquals("J:stale", Files.readString(json));
+    }
+
+    @Test
+    void returnsNullWhenNothingExists() {
+        assertNull(load(dir.resolve("a.dat"), "D:", dir.resolve("a.json"), "J:"));
+    }
+
+    /** Loads a string stored with a format prefix, as a manager would on start. */
+    private static String load(Path file, String prefix, Path legacy, String legacyPrefix) {
+        AtomicReference<String> state = new AtomicReference<>();
+        SnapshotWriter<String> writer = new SnapshotWriter<>(file, state::get,
+                s -> (prefix + s).getBytes(StandardCharsets.UTF_8), Runnable::run);
+        try {
+            String loaded = writer.load(decoder(prefix), legacy, decoder(legacyPrefix));
+            state.set(loaded);
+            return loaded;
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static AtomicFiles.Reader<String> decoder(String prefix) {
+        return data -> {
+            String s = new String(data, StandardCharsets.UTF_8);
+            if (!s.startsWith(prefix)) throw new IOException("not " + prefix + " data: " + s);
+            return s.substring(prefix.length());
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.reazip.economycraft.util;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.Items;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentifierCompatTest {
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @Test
+    void parsedIdsUnwrapToTheRegistryIdentifier() {
+        IdentifierCompat.Id id = IdentifierCompat.tryParse("minecraft:diamond");
+        assertEquals("minecraft", id.namespace());
+        assertEquals("diamond", id.path());
+
+        Object handle = IdentifierCompat.unwrap(id);
+        assertEquals(BuiltInRegistries.ITEM.getKey(Items.DIAMOND), handle);
+        assertEquals(id, IdentifierCompat.wrap(handle));
+    }
+
+    @Test
+    void registryLookupsAcceptParsedIds() {
+        IdentifierCompat.Id diamond = IdentifierCompat.tryParse("diamond");
+        assertTrue(IdentifierCompat.registryContainsKey(BuiltInRegistries.ITEM, diamond));
+        assertEquals(Optional.of(Items.DIAMOND), IdentifierCompat.registryGetOptional(BuiltInRegistries.ITEM, diamond));
+
+        IdentifierCompat.Id missing = IdentifierCompat.tryParse("economycraft:not_an_item");
+        assertFalse(IdentifierCompat.registryContainsKey(BuiltInRegistries.ITEM, missing));
+        assertEquals(Optional.empty(), IdentifierCompat.registryGetOptional(BuiltInRegistries.ITEM, missing));
+        assertFalse(IdentifierCompat.registryContainsKey(BuiltInRegistries.ITEM, null));
+    }
+
+    @Test
+    void resourceKeysRoundTrip() {
+        IdentifierCompat.Id id = IdentifierCompat.fromNamespaceAndPath("minecraft", "emerald");
+        ResourceKey<Item> key = IdentifierCompat.createResourceKey(Registries.ITEM, id);
+        assertEquals(BuiltInRegistries.ITEM.getResourceKey(Items.EMERALD).orElseThrow(), key);
+        assertEquals(id, IdentifierCompat.fromResourceKey(key));
+    }
+
+    @Test
+    void equalIdsShareOneInstance() {
+        IdentifierCompat.Id parsed = IdentifierCompat.tryParse(" minecraft:gold_ingot ");
+        assertSame(parsed, IdentifierCompat.tryParse("gold_ingot"));
+        assertSame(parsed, IdentifierCompat.withDefaultNamespace("gold_ingot"));
+        assertSame(parsed, IdentifierCompat.fromNamespaceAndPath("minecraft", "gold_ingot"));
+        assertSame(parsed, IdentifierCompat.wrap(BuiltInRegistries.ITEM.getKey(Items.GOLD_INGOT)));
+        // wrap reads the handle's own namespace and path; a fresh handle still hits the pool
+        Object handle = IdentifierCompat.unwrap(IdentifierCompat.fromNamespaceAndPath("economycraft", "fresh_id"));
+        assertSame(IdentifierCompat.tryParse("economycraft:fresh_id"), IdentifierCompat.wrap(handle));
+        assertSame(parsed, IdentifierCompat.fromNamespaceAndPath(new String("minecraft"), new String("gold_ingot")));
+    }
+
+    @Test
+    void invalidIdsParseToNull() {
+        assertNull(IdentifierCompat.tryParse(null));
+        assertNull(IdentifierCompat.tryParse("  "));
+        assertNull(IdentifierCompat.tryParse("Minecraft:diamond"));
+        assertNull(IdentifierCompat.tryParse("minecraft:Diamond"));
+        assertNull(IdentifierCompat.tryParse("minecraft:"));
+        assertNull(IdentifierCompat.tryParse(":diamond"));
+        assertNull(IdentifierCompat.fromNamespaceAndPath("mod", "a b"));
+        assertNull(IdentifierCompat.withDefaultNamespace(null));
+    }
+}
@@ -0,0 +1,51 @@
+package com.reazip.economycraft.util;
+
+import net.minecraft.ChatFormatting;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoreTextTest {
+    @Test
+    void labeledRendersFormattedAmounts() {
+        assertEquals("Balance: $0", balance(0).getString());
+        assertEquals("Balance: $-1.000", balance(-1_000).getString());
+        assertEquals("Balance: $999.999", balance(999_999).getString());
+        assertEquals("Balance: $9.223.372.036.854.775.807", balance(Long.MAX_VALUE).getString());
+        assertEquals("Balance: $-9.223.372.036.854.775.808", balance(Long.MIN_VALUE).getString());
+    }
+
+    @Test
+    void cachedLabelIsNotMutatedByAppends() {
+        MutableComponent first = balance(1);
+        MutableComponent second = balance(2);
+        assertEquals("Balance: $1", first.getString());
+        assertEquals("Balance: $2", second.getString());
+        assertEquals(1, second.getSiblings().size());
+    }
+
+    @Test
+    void labelAndValueKeepTheirOwnStyles() {
+        MutableComponent line = balance(5);
+        assertEquals(plainStyle(ChatFormatting.GRAY), line.getStyle());
+        assertEquals(plainStyle(ChatFormatting.GOLD), line.getSiblings().get(0).getStyle());
+    }
+
+    @Test
+    void plainIsNonItalic() {
+        assertEquals(Boolean.FALSE, LoreText.plain(ChatFormatting.RED).isItalic());
+        assertSame(LoreText.plain(ChatFormatting.RED), LoreText.plain(ChatFormatting.RED));
+        // formatting codes that are not colors only drop the italics
+        assertEquals(Style.EMPTY.withItalic(false), LoreText.plain(ChatFormatting.BOLD));
+    }
+
+    private static MutableComponent balance(long amount) {
+        return LoreText.labeled("Balance", ChatFormatting.GRAY, MoneyFormat.format(amount), ChatFormatting.GOLD);
+    }
+
+    private static Style plainStyle(ChatFormatting color) {
+        return Style.EMPTY.withItalic(false).withColor(color);
+    }
+}
@@ -0,0 +1,61 @@
+package com.reazip.economycraft.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyFormatTest {
+    @Test
+    void groupsThousandsWithDots() {
+        assertEquals("$0", MoneyFormat.format(0));
+        assertEquals("$7", MoneyFormat.format(7));
+        assertEquals("$999", MoneyFormat.format(999));
+        assertEquals("$1.000", MoneyFormat.format(1_000));
+        assertEquals("$12.345", MoneyFormat.format(12_345));
+        assertEquals("$999.999", MoneyFormat.format(999_999));
+        assertEquals("$1.000.000", MoneyFormat.format(1_000_000));
+    }
+
+    @Test
+    void negativeAmountsKeepSignAfterCurrency() {
+        assertEquals("$-1", MoneyFormat.format(-1));
+        assertEquals("$-999", MoneyFormat.format(-999));
+        assertEquals("$-1.000", MoneyFormat.format(-1_000));
+        assertEquals("$-123.456.789", MoneyFormat.format(-123_456_789));
+    }
+
+    @Test
+    void longExtremes() {
+        assertEquals("$9.223.372.036.854.775.807", MoneyFormat.format(Long.MAX_VALUE));
+        assertEquals("$-9.223.372.036.854.775.808", MoneyFormat.format(Long.MIN_VALUE));
+        assertEquals("$-9.223.372.036.854.775.807", MoneyFormat.format(Long.MIN_VALUE + 1));
+    }
+
+    @Test
+    void matchesGermanNumberFormat() {
+        NumberFormat reference = NumberFormat.getInstance(Locale.GERMANY);
+        SplittableRandom rng = new SplittableRandom(3);
+        for (int i = 0; i < 10_000; i++) {
+            // spread over all magnitudes, not just 19-digit values
+            long amount = rng.nextLong() >> rng.nextInt(64);
+            assertEquals("$" + reference.format(amount), MoneyFormat.format(amount));
+        }
+        for (long p = 1; p > 0 && p <= Long.MAX_VALUE / 10; p *= 10) {
+            for (long amount : new long[]{p - 1, p, p + 1, -p + 1, -p, -p - 1}) {
+                assertEquals("$" + reference.format(amount), MoneyFormat.format(amount));
+            }
+        }
+    }
+
+    @Test
+    void appendMatchesFormat() {
+        StringBuilder sb = new StringBuilder("Balance: ");
+        MoneyFormat.append(sb, 1_234_567).append(" / ");
+        MoneyFormat.append(sb, Long.MIN_VALUE);
+        assertEquals("Balance: $1.234.567 / $-9.223.372.036.854.775.808", sb.toString());
+    }
+}